@@ -0,0 +1,39 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Parser;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Bytes.bytes;
+import static com.github.chisui.parsec.Parser.*;
+import static java.util.stream.Collectors.counting;
+
+/**
+ * {@link com.github.chisui.parsec.base.AnyByte} consuming a whole document byte by byte.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnyByteBenchmark {
+
+    private final byte[] document = Documents.csv();
+    private final Parser<Object, Long> count = zeroOrMore(anyByte(), counting());
+    private final Parser<Object, byte[]> collect = zeroOrMore(anyByte(), bytes());
+
+    @Benchmark
+    public Either<Object, Long> count(InputKind kind) throws IOException {
+        return count.parse(kind.open(document));
+    }
+
+    @Benchmark
+    public Either<Object, byte[]> collect(InputKind kind) throws IOException {
+        return collect.parse(kind.open(document));
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Chars;
+import com.github.chisui.parsec.Parser;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.counting;
+
+/**
+ * {@link com.github.chisui.parsec.base.AnyCharacter} decoding ASCII and {@link com.github.chisui.parsec.base.CodePoint}
+ * decoding mixed width UTF-8 text, counting them or collecting them with {@link com.github.chisui.parsec.Chars}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnyCharacterBenchmark {
+
+    private final byte[] ascii = Documents.csv();
+    private final byte[] text = Documents.text();
+    private final Parser<Object, Long> utf8 = zeroOrMore(character(UTF_8), counting());
+    private final Parser<Object, Long> utf8CodePoints = zeroOrMore(codePoint(UTF_8), counting());
+    private final Parser<Object, String> utf8String = zeroOrMore(codePoint(UTF_8), Chars.codePoints(Documents.SIZE));
+    private final Parser<Object, Long> latin1 = zeroOrMore(character(ISO_8859_1), counting());
+
+    @Benchmark
+    public Either<Object, Long> utf8Ascii(InputKind kind) throws IOException {
+        return utf8.parse(kind.open(ascii));
+    }
+
+    @Benchmark
+    public Either<Object, Long> utf8Text(InputKind kind) throws IOException {
+        return utf8CodePoints.parse(kind.open(text));
+    }
+
+    @Benchmark
+    public Either<Object, String> utf8TextString(InputKind kind) throws IOException {
+        return utf8String.parse(kind.open(text));
+    }
+
+    @Benchmark
+    public Either<Object, Long> latin1(InputKind kind) throws IOException {
+        return latin1.parse(kind.open(ascii));
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.CharClass;
+import com.github.chisui.parsec.Parser;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.counting;
+
+/**
+ * Splitting mixed width UTF-8 text into runs of letters and non letters, with
+ * {@link com.github.chisui.parsec.base.CharsWhile} spans versus repeating a filtered
+ * {@link com.github.chisui.parsec.base.CodePoint}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CharClassBenchmark {
+    private static final CharClass LETTER = CharClass.letter();
+
+    private final byte[] text = Documents.text();
+    private final Parser<Object, Long> spans = zeroOrMore(
+            or(charsWhile1(LETTER), charsWhile1(LETTER.negate())),
+            counting());
+    private final Parser<Object, Long> filtered = zeroOrMore(
+            or(oneOrMore(codePoint(UTF_8).filterInt(Character::isLetter), counting()),
+                    oneOrMore(codePoint(UTF_8).filterInt(c -> !Character.isLetter(c)), counting())),
+            counting());
+
+    @Benchmark
+    public Either<Object, Long> charsWhile(InputKind kind) throws IOException {
+        return spans.parse(kind.open(text));
+    }
+
+    @Benchmark
+    public Either<Object, Long> filteredCodePoints(InputKind kind) throws IOException {
+        return filtered.parse(kind.open(text));
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.chisui.parsec.benchmarks;
+
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Deterministic benchmark documents. Every document is exactly {@link #SIZE} bytes long so that scores reported per
+ * operation can be read as per byte.
+ */
+final class Documents {
+
+    static final int SIZE = 64 * 1024;
+
+    static final String[] KEYWORDS = {
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char",
+            "class", "const", "continue", "default", "final", "double", "else", "enum",
+    };
+
+    private static final long SEED = 0x5eed;
+    private static final String FIELD_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String TEXT_CHARS = "abcdefghijklmnopqrstuvwxyz äöüßéèñ€→😀";
+
+    private static final int[] TEXT_CODE_POINTS = TEXT_CHARS.codePoints().toArray();
+
+    private Documents() {
+    }
+
+    /**
+     * {@code unit} repeated. The length of {@code unit} has to divide {@link #SIZE}.
+     */
+    static byte[] repeat(String unit) {
+        byte[] bytes = unit.getBytes(UTF_8);
+        if (SIZE % bytes.length != 0) {
+            throw new IllegalArgumentException("unit length has to divide " + SIZE);
+        }
+        byte[] out = new byte[SIZE];
+        for (int i = 0; i < SIZE; i += bytes.length) {
+            System.arraycopy(bytes, 0, out, i, bytes.length);
+        }
+        return out;
+    }
+
+    /**
+     * Rows of comma separated alphanumeric fields terminated by {@code '\n'}.
+     */
+    static byte[] csv() {
+        Random rnd = new Random(SEED);
+        StringBuilder doc = new StringBuilder(SIZE);
+        StringBuilder row = new StringBuilder();
+        while (true) {
+            row.setLength(0);
+            int fields = 1 + rnd.nextInt(8);
+            for (int i = 0; i < fields; i++) {
+                if (i > 0) {
+                    row.append(',');
+                }
+                appendRandom(rnd, row, FIELD_CHARS, 1 + rnd.nextInt(12));
+            }
+            row.append('\n');
+            if (doc.length() + row.length() + 2 > SIZE) {
+                break;
+            }
+            doc.append(row);
+        }
+        pad(doc, 'x', SIZE - 1).append('\n');
+        return ascii(doc);
+    }
+
+    /**
+     * {@link #KEYWORDS} separated by spaces.
+     */
+    static byte[] keywords() {
+        Random rnd = new Random(SEED);
+        StringBuilder doc = new StringBuilder(SIZE);
+        while (true) {
+            String keyword = KEYWORDS[rnd.nextInt(KEYWORDS.length)];
+            if (doc.length() + keyword.length() + 1 > SIZE) {
+                break;
+            }
+            doc.append(keyword).append(' ');
+        }
+        pad(doc, ' ', SIZE);
+        return ascii(doc);
+    }
+
+    /**
+     * Comma separated values that are either numbers or bracketed, comma separated lists of values nested up to
+     * {@code maxDepth} levels.
+     */
+    static byte[] nested(int maxDepth) {
+        Random rnd = new Random(SEED);
+        StringBuilder doc = new StringBuilder(SIZE);
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            value.setLength(0);
+            appendValue(rnd, value, 1 + rnd.nextInt(maxDepth));
+            value.append(',');
+            if (doc.length() + value.length() + 1 > SIZE) {
+                break;
+            }
+            doc.append(value);
+        }
+        pad(doc, '1', SIZE);
+        return ascii(doc);
+    }
+
+    /**
+     * Comma separated signed integers of up to 18 digits, or decimal fractions with an exponent if {@code fractional}.
+     */
+    static byte[] numbers(boolean fractional) {
+        Random rnd = new Random(SEED);
+        StringBuilder doc = new StringBuilder(SIZE);
+        while (true) {
+            String number = fractional
+                    ? Double.toString((rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(20) - 10))
+                    : Long.toString(rnd.nextLong() >> rnd.nextInt(63));
+            if (doc.length() + number.length() + 2 > SIZE) {
+                break;
+            }
+            doc.append(number).append(',');
+        }
+        pad(doc, '1', SIZE - 1).append(',');
+        return ascii(doc);
+    }
+
+    /**
+     * Text mixing one to four byte UTF-8 sequences.
+     */
+    static byte[] text() {
+        Random rnd = new Random(SEED);
+        StringBuilder doc = new StringBuilder(SIZE);
+        int size = 0;
+        while (true) {
+            int cp = TEXT_CODE_POINTS[rnd.nextInt(TEXT_CODE_POINTS.length)];
+            int len = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            if (size + len > SIZE) {
+                break;
+            }
+            doc.appendCodePoint(cp);
+            size += len;
+        }
+        for (; size < SIZE; size++) {
+            doc.append('x');
+        }
+        return doc.toString().getBytes(UTF_8);
+    }
+
+    private static void appendValue(Random rnd, StringBuilder out, int depth) {
+        if (depth <= 1) {
+            appendRandom(rnd, out, "0123456789", 1 + rnd.nextInt(6));
+        } else {
+            out.append('[');
+            int n = 1 + rnd.nextInt(3);
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendValue(rnd, out, depth - 1);
+            }
+            out.append(']');
+        }
+    }
+
+    private static void appendRandom(Random rnd, StringBuilder out, String chars, int n) {
+        for (int i = 0; i < n; i++) {
+            out.append(chars.charAt(rnd.nextInt(chars.length())));
+        }
+    }
+
+    private static StringBuilder pad(StringBuilder doc, char c, int size) {
+        while (doc.length() < size) {
+            doc.append(c);
+        }
+        return doc;
+    }
+
+    private static byte[] ascii(StringBuilder doc) {
+        byte[] bytes = doc.toString().getBytes(UTF_8);
+        if (bytes.length != SIZE) {
+            throw new IllegalStateException("expected " + SIZE + " bytes but got " + bytes.length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Parser;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.util.stream.Collectors.counting;
+
+/**
+ * {@link com.github.chisui.parsec.base.Expect} matching the same literal over and over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpectBenchmark {
+
+    private final byte[] document = Documents.repeat("abcdefgh");
+    private final Parser<Object, Long> parser = zeroOrMore(Parser.expect("abcdefgh"), counting());
+
+    @Benchmark
+    public Either<Object, Long> expect(InputKind kind) throws IOException {
+        return parser.parse(kind.open(document));
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Parser;
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link com.github.chisui.parsec.base.FirstMatch} choosing between many keywords, see {@link Grammars#keywords()},
+ * compared to a single {@link com.github.chisui.parsec.base.OneOf} trie, see {@link Grammars#keywordSet()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FirstMatchBenchmark {
+
+    private final byte[] document = Documents.keywords();
+    private final Parser<Tuple0, List<String>> parser = Grammars.keywords();
+    private final Parser<Tuple0, List<String>> keywordSet = Grammars.keywordSet();
+
+    @Benchmark
+    public Either<Tuple0, List<String>> keywords(InputKind kind) throws IOException {
+        return parser.parse(kind.open(document));
+    }
+
+    @Benchmark
+    public Either<Tuple0, List<String>> keywordSet(InputKind kind) throws IOException {
+        return keywordSet.parse(kind.open(document));
+    }
+}
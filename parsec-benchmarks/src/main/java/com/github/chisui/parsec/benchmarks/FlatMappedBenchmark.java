@@ -0,0 +1,42 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Parser;
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Parser.*;
+
+/**
+ * {@link com.github.chisui.parsec.base.FlatMapped} chains: sequences built with {@code then} and recursion through
+ * {@code flatMap}, see {@link Grammars#nested()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatMappedBenchmark {
+
+    @Param({"2", "8", "32"})
+    public int depth;
+
+    private byte[] document;
+    private final Parser<Tuple0, List<Object>> parser = Grammars.nested();
+
+    @Setup
+    public void setup() {
+        document = Documents.nested(depth);
+    }
+
+    @Benchmark
+    public Either<Tuple0, List<Object>> nested(InputKind kind) throws IOException {
+        return parser.parse(kind.open(document));
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.BytePredicate;
+import com.github.chisui.parsec.Parser;
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+
+import static com.github.chisui.parsec.Bytes.bytes;
+import static com.github.chisui.parsec.Parser.*;
+
+/**
+ * Realistic grammars for the documents in {@link Documents}.
+ */
+final class Grammars {
+
+    private Grammars() {
+    }
+
+    /**
+     * Rows of comma separated fields, see {@link Documents#csv()}.
+     */
+    static Parser<Tuple0, List<List<byte[]>>> csv() {
+        return csv(oneOrMore(
+                ignoreErrorDetails(anyByte().filter(b -> b != ',' && b != '\n')),
+                bytes()));
+    }
+
+    /**
+     * {@link #csv()} with fields scanned by {@link Parser#takeWhile1(BytePredicate)}.
+     */
+    static Parser<Tuple0, List<List<byte[]>>> csvSpans() {
+        return csv(takeWhile1(BytePredicate.anyOf(",\n").negate()));
+    }
+
+    private static Parser<Tuple0, List<List<byte[]>>> csv(Parser<Tuple0, byte[]> field) {
+        Parser<Tuple0, List<byte[]>> row = field
+                .then(zeroOrMore(ignoreErrorDetails(expect(",")).then(field)), (f, fs) -> fs.prepend(f))
+                .followedBy(ignoreErrorDetails(expect("\n")));
+        return zeroOrMore(row);
+    }
+
+    /**
+     * Space separated keywords, see {@link Documents#keywords()}.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // generic array
+    })
+    static Parser<Tuple0, List<String>> keywords() {
+        Parser[] px = new Parser[Documents.KEYWORDS.length + 1];
+        for (int i = 0; i < Documents.KEYWORDS.length; i++) {
+            px[i] = ignoreErrorDetails(expect(Documents.KEYWORDS[i]));
+        }
+        px[Documents.KEYWORDS.length] = ignoreErrorDetails(expect(" "));
+        Parser<Tuple0, String> token = or(px);
+        return zeroOrMore(token);
+    }
+
+    /**
+     * The same tokens as {@link #keywords()} matched by a single {@link Parser#oneOf(String...)}.
+     */
+    static Parser<Tuple0, List<String>> keywordSet() {
+        String[] literals = new String[Documents.KEYWORDS.length + 1];
+        System.arraycopy(Documents.KEYWORDS, 0, literals, 0, Documents.KEYWORDS.length);
+        literals[Documents.KEYWORDS.length] = " ";
+        return zeroOrMore(oneOf(literals));
+    }
+
+    /**
+     * Comma separated numbers and nested lists, see {@link Documents#nested(int)}. The recursion is tied through
+     * {@link Parser#flatMap(java.util.function.Function)}.
+     */
+    @SuppressWarnings({
+            "unchecked", // generic array
+    })
+    static Parser<Tuple0, List<Object>> nested() {
+        Parser<Tuple0, Object>[] value = new Parser[1];
+        Parser<Tuple0, Object> number = oneOrMore(ignoreErrorDetails(anyByte().filter(b -> b >= '0' && b <= '9')), bytes())
+                .map(b -> b);
+        Parser<Tuple0, Object> list = ignoreErrorDetails(expect("["))
+                .flatMap(x -> values(value[0]))
+                .followedBy(ignoreErrorDetails(expect("]")))
+                .map(l -> l);
+        value[0] = or(number, list);
+        return values(value[0]);
+    }
+
+    private static Parser<Tuple0, List<Object>> values(Parser<Tuple0, Object> value) {
+        return value.then(zeroOrMore(ignoreErrorDetails(expect(",")).then(value)), (v, vs) -> vs.prepend(v));
+    }
+}
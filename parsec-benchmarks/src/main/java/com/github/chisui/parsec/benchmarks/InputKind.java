@@ -0,0 +1,57 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.ArrayInput;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.ReadAheadInputStream;
+import com.github.chisui.parsec.StreamInput;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * The {@link Input} implementation a benchmark runs on. {@code stream-N} is a {@link StreamInput} with a chunk size
+ * of {@code N} bytes, {@code readahead-N} additionally reads ahead on a background thread.
+ */
+@State(Scope.Benchmark)
+public class InputKind {
+
+    private static final int PREFETCH_DEPTH = 4;
+
+    @Param({"array", "stream-64", "stream-1024", "stream-16384", "readahead-1024"})
+    public String input;
+
+    private int chunkSize;
+    private boolean readAhead;
+
+    @Setup
+    public void setup() {
+        if ("array".equals(input)) {
+            chunkSize = 0;
+        } else if (input.startsWith("stream-")) {
+            chunkSize = Integer.parseInt(input.substring("stream-".length()));
+        } else if (input.startsWith("readahead-")) {
+            chunkSize = Integer.parseInt(input.substring("readahead-".length()));
+            readAhead = true;
+        } else {
+            throw new IllegalArgumentException("unknown input " + input);
+        }
+    }
+
+    public Input open(byte[] document) {
+        if (chunkSize == 0) {
+            return ArrayInput.of(document);
+        }
+        InputStream stream = new ByteArrayInputStream(document);
+        if (readAhead) {
+            stream = ReadAheadInputStream.of(stream, chunkSize, PREFETCH_DEPTH);
+        }
+        return StreamInput.of(stream,
+                StreamInput.DEFAULT_INITIAL_MARKER_CAPACITY,
+                chunkSize,
+                Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.BytePredicate;
+import com.github.chisui.parsec.NumberError;
+import com.github.chisui.parsec.Parser;
+import io.vavr.Tuple0;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.util.stream.Collectors.summingDouble;
+import static java.util.stream.Collectors.summingLong;
+
+/**
+ * {@link com.github.chisui.parsec.base.IntegerLiteral} and {@link com.github.chisui.parsec.base.DoubleLiteral}
+ * against collecting the digits into a String and calling {@link Long#parseLong(String)} or
+ * {@link Double#parseDouble(String)}. {@code foldLong} sums the values without boxing them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberBenchmark {
+
+    private static final Parser<Tuple0, byte[]> COMMA = ignoreErrorDetails(expect(new byte[] {','}));
+
+    private final byte[] integers = Documents.numbers(false);
+    private final byte[] fractions = Documents.numbers(true);
+
+    private final Parser<Tuple0, Long> decimalLong = zeroOrMore(
+            ignoreErrorDetails(Parser.decimalLong()).followedBy(COMMA),
+            summingLong(l -> l));
+    private final Parser<Tuple0, Long> foldLong = Parser.foldLong(
+            Parser.decimalLong().followedBy(COMMA.mapErr(e -> NumberError.NO_DIGITS)),
+            0,
+            Long::sum);
+    private final Parser<Tuple0, Long> parseLong = zeroOrMore(
+            takeWhile1(BytePredicate.digit().or(BytePredicate.anyOf("-")))
+                    .map(b -> Long.parseLong(new String(b, ISO_8859_1)))
+                    .followedBy(COMMA),
+            summingLong(l -> l));
+    private final Parser<Tuple0, Double> decimalDouble = zeroOrMore(
+            ignoreErrorDetails(Parser.decimalDouble()).followedBy(COMMA),
+            summingDouble(d -> d));
+    private final Parser<Tuple0, Double> parseDouble = zeroOrMore(
+            takeWhile1(BytePredicate.digit().or(BytePredicate.anyOf("-+.eE")))
+                    .map(b -> Double.parseDouble(new String(b, ISO_8859_1)))
+                    .followedBy(COMMA),
+            summingDouble(d -> d));
+
+    @Benchmark
+    public Either<Tuple0, Long> decimalLong(InputKind kind) throws IOException {
+        return decimalLong.parse(kind.open(integers));
+    }
+
+    @Benchmark
+    public Either<Tuple0, Long> foldLong(InputKind kind) throws IOException {
+        return foldLong.parse(kind.open(integers));
+    }
+
+    @Benchmark
+    public Either<Tuple0, Long> parseLong(InputKind kind) throws IOException {
+        return parseLong.parse(kind.open(integers));
+    }
+
+    @Benchmark
+    public Either<Tuple0, Double> decimalDouble(InputKind kind) throws IOException {
+        return decimalDouble.parse(kind.open(fractions));
+    }
+
+    @Benchmark
+    public Either<Tuple0, Double> parseDouble(InputKind kind) throws IOException {
+        return parseDouble.parse(kind.open(fractions));
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Parser;
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Bytes.bytes;
+import static com.github.chisui.parsec.Parser.*;
+
+/**
+ * {@link com.github.chisui.parsec.base.ZeroOrMore} and {@link com.github.chisui.parsec.base.OneOrMore} on a CSV like
+ * grammar, see {@link Grammars#csv()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepetitionBenchmark {
+
+    private final byte[] document = Documents.csv();
+    private final Parser<Tuple0, List<List<byte[]>>> csv = Grammars.csv();
+    private final Parser<Tuple0, List<List<byte[]>>> csvSpans = Grammars.csvSpans();
+    private final Parser<Tuple0, byte[]> oneOrMore = Parser.oneOrMore(anyByte(), bytes());
+    private final Parser<Tuple0, byte[]> takeWhile1 = Parser.takeWhile1(b -> true);
+
+    @Benchmark
+    public Either<Tuple0, List<List<byte[]>>> csv(InputKind kind) throws IOException {
+        return csv.parse(kind.open(document));
+    }
+
+    @Benchmark
+    public Either<Tuple0, List<List<byte[]>>> csvSpans(InputKind kind) throws IOException {
+        return csvSpans.parse(kind.open(document));
+    }
+
+    @Benchmark
+    public Either<Tuple0, byte[]> oneOrMore(InputKind kind) throws IOException {
+        return oneOrMore.parse(kind.open(document));
+    }
+
+    @Benchmark
+    public Either<Tuple0, byte[]> takeWhile1(InputKind kind) throws IOException {
+        return takeWhile1.parse(kind.open(document));
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.chisui.parsec.benchmarks;
+
+import com.github.chisui.parsec.Parser;
+import io.vavr.Tuple0;
+import io.vavr.control.Either;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.util.stream.Collectors.counting;
+
+/**
+ * {@link com.github.chisui.parsec.base.TryParse} attempting a literal at every position and backtracking when it fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(Documents.SIZE)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TryParseBenchmark {
+
+    private final byte[] document = Documents.keywords();
+    private final Parser<Tuple0, Long> parser = zeroOrMore(
+            Parser.<Tuple0, Integer, String>tryParse(expect("case")).then(anyByte()),
+            counting());
+
+    @Benchmark
+    public Either<Tuple0, Long> tryParse(InputKind kind) throws IOException {
+        return parser.parse(kind.open(document));
+    }
+}
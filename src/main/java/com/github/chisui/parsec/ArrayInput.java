@@ -2,6 +2,8 @@ package com.github.chisui.parsec;
 
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class ArrayInput implements Input, Input.Chunk {
@@ -9,6 +11,8 @@ public class ArrayInput implements Input, Input.Chunk {
     private final byte[] bytes;
     private int start;
     private int end;
+    /** markers before this position were invalidated by {@link #cut()} */
+    private int cut;
 
     private ArrayInput(byte[] bytes) {
         this.bytes = bytes;
@@ -42,19 +46,45 @@ public class ArrayInput implements Input, Input.Chunk {
         return end == bytes.length;
     }
 
+    @Override
+    public long position() {
+        return end;
+    }
+
     @Override
     public Marker mark() {
         int mark = end;
-        return () -> {
-            end = mark;
-            start = mark;
+        return new Marker() {
+            @Override
+            public void rewind() throws IOException {
+                if (isCut()) {
+                    throw new IOException("Can not rewind to position " + mark + " before cut at " + cut);
+                }
+                end = mark;
+                start = mark;
+            }
+
+            @Override
+            public boolean isCut() {
+                return mark < cut;
+            }
         };
     }
 
+    @Override
+    public void cut() {
+        cut = end;
+    }
+
+    @Override
+    public ByteSlice slice(Marker start, int length) {
+        return ByteSlice.of(bytes, end - length, length);
+    }
+
     @Override
     public Chunk read(int size) {
         start = end;
-        end = Math.min(end + size, bytes.length);
+        end += Math.min(size, bytes.length - end);
         return this;
     }
 
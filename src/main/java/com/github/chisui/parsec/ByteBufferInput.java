@@ -0,0 +1,143 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.lang.Math.min;
+
+/**
+ * An {@link Input} over the remaining bytes of a {@link ByteBuffer}. Heap buffers expose their backing array through
+ * {@link Chunk#volatileBytes()}, direct buffers are read through {@link Chunk#buffer()} without being copied. The
+ * position and limit of the given buffer are not modified.
+ */
+public class ByteBufferInput implements Input, Input.Chunk {
+
+    private final ByteBuffer buffer;
+    private final boolean hasArray;
+    private final int offset;
+    private final int limit;
+    private byte[] volatileBytes;
+    private boolean copied;
+    private int from;
+    private int to;
+    /** markers before this index were invalidated by {@link #cut()} */
+    private int cut;
+
+    private ByteBufferInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.hasArray = buffer.hasArray();
+        this.offset = buffer.position();
+        this.limit = buffer.limit();
+        this.from = buffer.position();
+        this.to = buffer.position();
+        this.cut = buffer.position();
+    }
+
+    public static ByteBufferInput of(@NonNull ByteBuffer buffer) {
+        return new ByteBufferInput(buffer.duplicate());
+    }
+
+    @Override
+    public boolean hasArray() {
+        return hasArray;
+    }
+
+    @Override
+    public ByteBuffer buffer() {
+        buffer.limit(to);
+        buffer.position(from);
+        return buffer;
+    }
+
+    @Override
+    public byte byteAt(int i) {
+        return buffer.get(from + i);
+    }
+
+    /**
+     * For buffers without an accessible array this copies the read bytes to the start of an array that is reused
+     * across reads.
+     */
+    @Override
+    public byte[] volatileBytes() {
+        if (hasArray) {
+            return buffer.array();
+        }
+        if (!copied) {
+            if (volatileBytes == null || volatileBytes.length < to - from) {
+                volatileBytes = new byte[to - from];
+            }
+            buffer().get(volatileBytes, 0, to - from);
+            copied = true;
+        }
+        return volatileBytes;
+    }
+
+    @Override
+    public int start() {
+        return hasArray ? buffer.arrayOffset() + from : 0;
+    }
+
+    @Override
+    public int end() {
+        return hasArray ? buffer.arrayOffset() + to : to - from;
+    }
+
+    @Override
+    public boolean isTail() {
+        return to == limit;
+    }
+
+    @Override
+    public long position() {
+        return to - offset;
+    }
+
+    @Override
+    public Marker mark() {
+        int mark = to;
+        return new Marker() {
+            @Override
+            public void rewind() throws IOException {
+                if (isCut()) {
+                    throw new IOException("Can not rewind to position " + (mark - offset) + " before cut at "
+                            + (cut - offset));
+                }
+                to = mark;
+                from = mark;
+            }
+
+            @Override
+            public boolean isCut() {
+                return mark < cut;
+            }
+        };
+    }
+
+    @Override
+    public void cut() {
+        cut = to;
+    }
+
+    @Override
+    public ByteSlice slice(Marker start, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(to);
+        view.position(to - length);
+        return ByteSlice.of(view);
+    }
+
+    @Override
+    public Chunk read(int size) {
+        from = to;
+        to = min(to + size, limit);
+        copied = false;
+        return this;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A growable array of unboxed bytes, the accumulator of the {@link Bytes} collectors.
+ */
+public final class ByteBuilder {
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private byte[] bytes;
+    private int size;
+
+    private ByteBuilder(int capacity) {
+        this.bytes = new byte[capacity];
+    }
+
+    public static ByteBuilder create() {
+        return new ByteBuilder(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of bytes expected, so the builder does not have to grow until they are appended
+     */
+    public static ByteBuilder create(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Expected capacity to be non negative but got " + capacity);
+        }
+        return new ByteBuilder(capacity);
+    }
+
+    public ByteBuilder append(byte b) {
+        if (size == bytes.length) {
+            grow(size + 1);
+        }
+        bytes[size++] = b;
+        return this;
+    }
+
+    public ByteBuilder append(@NonNull byte[] b, int offset, int length) {
+        if (size + length > bytes.length) {
+            grow(size + length);
+        }
+        System.arraycopy(b, offset, bytes, size, length);
+        size += length;
+        return this;
+    }
+
+    public ByteBuilder append(@NonNull byte[] b) {
+        return append(b, 0, b.length);
+    }
+
+    public ByteBuilder append(@NonNull ByteBuilder other) {
+        return append(other.bytes, 0, other.size);
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) {
+            throw new OutOfMemoryError("ByteBuilder can not hold " + Integer.toUnsignedString(minCapacity) + " bytes");
+        }
+        bytes = Arrays.copyOf(bytes, (int) Math.min(Math.max(minCapacity, 2L * bytes.length), MAX_ARRAY_SIZE));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte byteAt(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("byteAt(" + i + ") of " + size + " bytes");
+        }
+        return bytes[i];
+    }
+
+    /**
+     * @return a copy of the appended bytes
+     */
+    public byte[] toArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * @return a view of the bytes appended so far, which later appends do not change
+     */
+    public ByteSlice toSlice() {
+        return ByteSlice.of(bytes, 0, size);
+    }
+
+    /**
+     * @return the appended bytes decoded straight from the builder
+     */
+    public String decode(@NonNull Charset charset) {
+        return new String(bytes, 0, size, charset);
+    }
+
+    public String toString() {
+        return "ByteBuilder(" + size + " bytes)";
+    }
+}
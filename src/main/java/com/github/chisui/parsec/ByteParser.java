@@ -0,0 +1,46 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.ByteFiltered;
+import com.github.chisui.parsec.base.UnboxedByte;
+import io.vavr.control.Either;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Parser} of single bytes that stores its result unboxed with {@link Result#succeedByte(byte)}, see
+ * {@link IntParser}.
+ */
+public interface ByteParser<E> extends ResultParser<E, Byte> {
+
+    /**
+     * Parse like {@link #parseInto(Input, Result, Consumer)} but store a success with
+     * {@link Result#succeedByte(byte)}.
+     *
+     * @return whether parsing succeeded
+     */
+    boolean parseByte(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException;
+
+    @Override
+    default boolean parseInto(Input in, Result<E, Byte> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return parseByte(in, out, trace)
+                && out.succeed(out.getByte());
+    }
+
+    /**
+     * @return a parser that fails with {@code Right(value)} if {@code p} does not hold for the parsed byte
+     */
+    default ByteParser<Either<E, Byte>> filterByte(@NonNull BytePredicate p) {
+        return new ByteFiltered<>(this, p);
+    }
+
+    /**
+     * @return {@code p} itself if it is a {@link ByteParser}, otherwise {@code p} unboxing its result
+     */
+    static <E> ByteParser<E> of(@NonNull Parser<E, Byte> p) {
+        return p instanceof ByteParser
+                ? (ByteParser<E>) p
+                : new UnboxedByte<>(p);
+    }
+}
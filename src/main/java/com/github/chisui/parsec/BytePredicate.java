@@ -0,0 +1,80 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+/**
+ * A predicate on unboxed bytes. Parsers that take a {@link BytePredicate} may evaluate it for all 256 byte values
+ * once up front, so it has to be pure.
+ */
+@FunctionalInterface
+public interface BytePredicate {
+
+    boolean test(byte b);
+
+    default BytePredicate negate() {
+        return b -> !test(b);
+    }
+
+    default BytePredicate and(@NonNull BytePredicate other) {
+        return b -> test(b) && other.test(b);
+    }
+
+    default BytePredicate or(@NonNull BytePredicate other) {
+        return b -> test(b) || other.test(b);
+    }
+
+    /**
+     * @param from first unsigned byte value of the range
+     * @param to last unsigned byte value of the range, inclusive
+     * @return a predicate matching all bytes in the range
+     */
+    static BytePredicate range(int from, int to) {
+        return b -> (b & 0xff) >= from && (b & 0xff) <= to;
+    }
+
+    static BytePredicate anyOf(@NonNull byte... bytes) {
+        byte[] copy = bytes.clone();
+        return b -> {
+            for (byte c : copy) {
+                if (b == c) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * @param chars characters between U+0000 and U+00FF
+     * @return a predicate matching the bytes of {@code chars} in ISO-8859-1
+     * @throws IllegalArgumentException if a character is above U+00FF
+     */
+    static BytePredicate anyOf(@NonNull String chars) {
+        byte[] bytes = new byte[chars.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = chars.charAt(i);
+            if (c > 0xff) {
+                throw new IllegalArgumentException(
+                        String.format("U+%04X at index %d is not a single byte", (int) c, i));
+            }
+            bytes[i] = (byte) c;
+        }
+        return anyOf(bytes);
+    }
+
+    static BytePredicate digit() {
+        return range('0', '9');
+    }
+
+    static BytePredicate hexDigit() {
+        return digit().or(range('a', 'f')).or(range('A', 'F'));
+    }
+
+    static BytePredicate letter() {
+        return range('a', 'z').or(range('A', 'Z'));
+    }
+
+    static BytePredicate whitespace() {
+        return anyOf(" \t\r\n");
+    }
+}
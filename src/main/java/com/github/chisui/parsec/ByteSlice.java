@@ -0,0 +1,120 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * An immutable range of bytes that may be a view of the parsed input instead of a copy, see
+ * {@link Parser#capture(Parser)}. Slices are equal if they hold the same bytes.
+ */
+public final class ByteSlice {
+    private static final int MAX_TO_STRING_SIZE = 32;
+    private static final ByteSlice EMPTY = new ByteSlice(ByteBuffer.allocate(0));
+
+    /** the slice between position 0 and the limit */
+    private final ByteBuffer bytes;
+
+    private ByteSlice(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    public static ByteSlice empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return a view of {@code bytes}, which must not be modified afterwards
+     */
+    public static ByteSlice of(@NonNull byte[] bytes) {
+        return of(bytes, 0, bytes.length);
+    }
+
+    /**
+     * The bytes are not copied, so they must not be modified afterwards.
+     *
+     * @return a view of {@code length} bytes of {@code bytes} from {@code offset}
+     */
+    public static ByteSlice of(@NonNull byte[] bytes, int offset, int length) {
+        return new ByteSlice(ByteBuffer.wrap(bytes, offset, length).slice());
+    }
+
+    /**
+     * @return a view of the remaining bytes of {@code buffer}, which must not be modified afterwards. The position and
+     * limit of {@code buffer} are not modified.
+     */
+    public static ByteSlice of(@NonNull ByteBuffer buffer) {
+        return new ByteSlice(buffer.slice());
+    }
+
+    public int size() {
+        return bytes.limit();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public byte byteAt(int i) {
+        return bytes.get(i);
+    }
+
+    /**
+     * @return the bytes from {@code from} up to {@code to}, without copying them
+     */
+    public ByteSlice slice(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("slice(" + from + ", " + to + ") of " + size() + " bytes");
+        }
+        ByteBuffer view = bytes.duplicate();
+        view.position(from);
+        view.limit(to);
+        return new ByteSlice(view.slice());
+    }
+
+    /**
+     * @return a read only view of the bytes between position and limit
+     */
+    public ByteBuffer buffer() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    public byte[] toArray() {
+        if (bytes.hasArray()) {
+            int offset = bytes.arrayOffset();
+            return Arrays.copyOfRange(bytes.array(), offset, offset + size());
+        }
+        byte[] array = new byte[size()];
+        bytes.duplicate().get(array);
+        return array;
+    }
+
+    /**
+     * Decode the bytes, straight from the input if the slice is a view of a heap array.
+     */
+    public String decode(@NonNull Charset charset) {
+        if (bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset(), size(), charset);
+        }
+        return charset.decode(bytes.duplicate()).toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this
+                || o instanceof ByteSlice && bytes.equals(((ByteSlice) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return bytes.hashCode();
+    }
+
+    public String toString() {
+        return size() <= MAX_TO_STRING_SIZE
+                ? "ByteSlice(" + Arrays.toString(toArray()) + ")"
+                : "ByteSlice(" + Arrays.toString(slice(0, MAX_TO_STRING_SIZE).toArray()) + "... " + size() + " bytes)";
+    }
+}
@@ -3,28 +3,109 @@ package com.github.chisui.parsec;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.stream.Collector;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import static java.util.stream.Collectors.collectingAndThen;
-import static java.util.stream.Collectors.toList;
 import static lombok.AccessLevel.PRIVATE;
 
+/**
+ * Collectors of bytes into a {@link ByteBuilder}. They are {@link UnboxedCollector}s, so repeating a
+ * {@link ByteParser} like {@link Parser#anyByte()} with them never boxes. The capacity is the number of bytes
+ * expected, so the builder does not grow until they are collected.
+ */
 @NoArgsConstructor(access = PRIVATE)
 public final class Bytes {
 
-    public static Collector<Byte, ?, byte[]> bytes() {
-        return collectingAndThen(toList(), it -> {
-            byte[] bytes = new byte[it.size()];
-            int i = 0;
-            for (Byte b : it) {
-                bytes[i++] = b;
-            }
-            return bytes;
-        });
+    public static UnboxedCollector<Byte, ByteBuilder, byte[]> bytes() {
+        return bytes(ByteBuilder.DEFAULT_CAPACITY);
+    }
+
+    public static UnboxedCollector<Byte, ByteBuilder, byte[]> bytes(int capacity) {
+        return new ByteCollector<>(capacity, ByteBuilder::toArray);
+    }
+
+    /**
+     * @return a collector that decodes the collected bytes once at the end, without copying them first
+     */
+    public static UnboxedCollector<Byte, ByteBuilder, String> asString(@NonNull Charset charset) {
+        return asString(charset, ByteBuilder.DEFAULT_CAPACITY);
+    }
+
+    public static UnboxedCollector<Byte, ByteBuilder, String> asString(@NonNull Charset charset, int capacity) {
+        return new ByteCollector<>(capacity, b -> b.decode(charset));
+    }
+
+    /**
+     * @return a collector of the bytes as a {@link ByteSlice} of the builder, without copying them
+     */
+    public static UnboxedCollector<Byte, ByteBuilder, ByteSlice> slice(int capacity) {
+        return new ByteCollector<>(capacity, ByteBuilder::toSlice);
     }
 
-    public static Collector<Byte, ?, String> asString(@NonNull Charset charset) {
-        return collectingAndThen(bytes(), b -> new String(b, charset));
+    private static final class ByteCollector<S> implements UnboxedCollector<Byte, ByteBuilder, S> {
+        private final int capacity;
+        private final Function<ByteBuilder, S> finisher;
+
+        private ByteCollector(int capacity, Function<ByteBuilder, S> finisher) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Expected capacity to be non negative but got " + capacity);
+            }
+            this.capacity = capacity;
+            this.finisher = finisher;
+        }
+
+        @Override
+        public <E> boolean accumulate(
+                Parser<E, Byte> p,
+                Input in,
+                Result<E, ?> res,
+                ByteBuilder acc,
+                Consumer<? super Parser<?, ?>> trace) throws IOException {
+            if (p instanceof ByteParser) {
+                if (!((ByteParser<E>) p).parseByte(in, res, trace)) {
+                    return false;
+                }
+                acc.append(res.getByte());
+            } else {
+                Result<E, Byte> boxed = res.retype();
+                if (!p.parseInto(in, boxed, trace)) {
+                    return false;
+                }
+                acc.append(boxed.get());
+            }
+            return true;
+        }
+
+        @Override
+        public Supplier<ByteBuilder> supplier() {
+            return () -> ByteBuilder.create(capacity);
+        }
+
+        @Override
+        public BiConsumer<ByteBuilder, Byte> accumulator() {
+            return ByteBuilder::append;
+        }
+
+        @Override
+        public BinaryOperator<ByteBuilder> combiner() {
+            return ByteBuilder::append;
+        }
+
+        @Override
+        public Function<ByteBuilder, S> finisher() {
+            return finisher;
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Collections.emptySet();
+        }
     }
 }
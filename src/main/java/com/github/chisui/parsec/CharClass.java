@@ -0,0 +1,328 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable set of Unicode code points, compiled to a bitmap of the ASCII members and a sorted table of disjoint
+ * ranges, so membership costs a bit test for ASCII and a binary search otherwise.
+ *
+ * @see Parser#charIn(CharClass)
+ * @see Parser#charsWhile(CharClass)
+ */
+public final class CharClass {
+    private static final CharClass NONE = new CharClass("none", new int[0]);
+    private static final CharClass ANY = new CharClass("any", new int[] {0, Character.MAX_CODE_POINT});
+
+    /** abbreviations of the general categories, indexed by the values of {@link Character#getType(int)} */
+    private static final String[] CATEGORY_NAMES = {
+            "Cn", "Lu", "Ll", "Lt", "Lm", "Lo", "Mn", "Me", "Mc", "Nd", "Nl", "No", "Zs", "Zl", "Zp", "Cc", "Cf", null,
+            "Co", "Cs", "Pd", "Ps", "Pe", "Pc", "Po", "Sm", "Sc", "Sk", "So", "Pi", "Pf",
+    };
+
+    private final String name;
+    /** inclusive bounds of sorted, disjoint and not adjacent ranges */
+    private final int[] ranges;
+    private final long ascii0;
+    private final long ascii1;
+
+    private CharClass(String name, int[] ranges) {
+        this.name = name;
+        this.ranges = ranges;
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < ranges.length && ranges[i] < 128; i += 2) {
+            for (int c = ranges[i]; c <= Math.min(ranges[i + 1], 127); c++) {
+                if (c < 64) {
+                    low |= 1L << c;
+                } else {
+                    high |= 1L << c;
+                }
+            }
+        }
+        this.ascii0 = low;
+        this.ascii1 = high;
+    }
+
+    public static CharClass none() {
+        return NONE;
+    }
+
+    public static CharClass any() {
+        return ANY;
+    }
+
+    /**
+     * @return the code points from {@code from} up to and including {@code to}
+     */
+    public static CharClass range(int from, int to) {
+        if (from < 0 || to > Character.MAX_CODE_POINT || from > to) {
+            throw new IllegalArgumentException("Expected a range of code points but got " + from + " to " + to);
+        }
+        return new CharClass("[" + format(from) + "-" + format(to) + "]", new int[] {from, to});
+    }
+
+    public static CharClass of(@NonNull int... codePoints) {
+        int[] ranges = new int[2 * codePoints.length];
+        for (int i = 0; i < codePoints.length; i++) {
+            if (!Character.isValidCodePoint(codePoints[i])) {
+                throw new IllegalArgumentException("Expected a code point but got " + codePoints[i]);
+            }
+            ranges[2 * i] = codePoints[i];
+            ranges[2 * i + 1] = codePoints[i];
+        }
+        StringBuilder name = new StringBuilder("[");
+        for (int c : codePoints) {
+            name.append(format(c));
+        }
+        return new CharClass(name.append(']').toString(), normalize(ranges));
+    }
+
+    /**
+     * @return the code points of {@code chars}
+     */
+    public static CharClass anyOf(@NonNull String chars) {
+        return of(chars.codePoints().toArray());
+    }
+
+    /**
+     * A Unicode general category like {@code "Lu"}, or all categories of a major class like {@code "L"}, as reported
+     * by {@link Character#getType(int)}. The tables of all categories are computed once on first use.
+     *
+     * @param name an abbreviation of a general category
+     * @return the code points of the category
+     */
+    public static CharClass category(@NonNull String name) {
+        int[] ranges = new int[0];
+        boolean known = false;
+        for (int type = 0; type < CATEGORY_NAMES.length; type++) {
+            if (CATEGORY_NAMES[type] != null && CATEGORY_NAMES[type].startsWith(name) && name.length() > 0) {
+                ranges = union(ranges, Categories.RANGES[type]);
+                known = true;
+            }
+        }
+        if (!known) {
+            throw new IllegalArgumentException("Unknown general category " + name);
+        }
+        return new CharClass("\\p{" + name + "}", ranges);
+    }
+
+    /**
+     * @return the letters of all scripts, see {@link Character#isLetter(int)}
+     */
+    public static CharClass letter() {
+        return category("L");
+    }
+
+    /**
+     * @return the decimal digits of all scripts, see {@link Character#isDigit(int)}
+     */
+    public static CharClass digit() {
+        return category("Nd");
+    }
+
+    /**
+     * @return the code points of {@link Character#isWhitespace(int)}
+     */
+    public static CharClass whitespace() {
+        return Categories.WHITESPACE;
+    }
+
+    /**
+     * Compile an arbitrary predicate by testing every code point, which takes milliseconds, so the result should be
+     * kept in a constant.
+     */
+    public static CharClass matching(@NonNull String name, @NonNull IntPredicate predicate) {
+        return new CharClass(name, scan(predicate));
+    }
+
+    public CharClass union(@NonNull CharClass other) {
+        return new CharClass("(" + name + "|" + other.name + ")", union(ranges, other.ranges));
+    }
+
+    public CharClass intersect(@NonNull CharClass other) {
+        return new CharClass("(" + name + "&" + other.name + ")", intersect(ranges, other.ranges));
+    }
+
+    public CharClass minus(@NonNull CharClass other) {
+        return new CharClass("(" + name + "-" + other.name + ")", intersect(ranges, complement(other.ranges)));
+    }
+
+    public CharClass negate() {
+        return new CharClass("!" + name, complement(ranges));
+    }
+
+    public boolean contains(int codePoint) {
+        if (codePoint < 128) {
+            return codePoint >= 0 && ((codePoint < 64 ? ascii0 : ascii1) >>> codePoint & 1) != 0;
+        }
+        int i = Arrays.binarySearch(ranges, codePoint);
+        return i >= 0 || (-i - 1) % 2 == 1;
+    }
+
+    /**
+     * @return whether any code point from {@code from} up to and including {@code to} is a member
+     */
+    public boolean containsAny(int from, int to) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > to) {
+                return false;
+            } else if (ranges[i + 1] >= from) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    /**
+     * @return whether all members are ASCII
+     */
+    public boolean isAscii() {
+        return ranges.length == 0 || ranges[ranges.length - 1] < 128;
+    }
+
+    private static int[] normalize(int[] ranges) {
+        int n = ranges.length / 2;
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = (long) ranges[2 * i] << 32 | ranges[2 * i + 1];
+        }
+        Arrays.sort(sorted);
+        int[] merged = new int[ranges.length];
+        int size = 0;
+        for (long r : sorted) {
+            int from = (int) (r >>> 32);
+            int to = (int) r;
+            if (size > 0 && from <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], to);
+            } else {
+                merged[size++] = from;
+                merged[size++] = to;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] both = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, both, a.length, b.length);
+        return normalize(both);
+    }
+
+    private static int[] complement(int[] ranges) {
+        int[] out = new int[ranges.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                out[size++] = next;
+                out[size++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            out[size++] = next;
+            out[size++] = Character.MAX_CODE_POINT;
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int from = Math.max(a[i], b[j]);
+            int to = Math.min(a[i + 1], b[j + 1]);
+            if (from <= to) {
+                out[size++] = from;
+                out[size++] = to;
+            }
+            if (a[i + 1] < b[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static int[] scan(IntPredicate predicate) {
+        int[] out = new int[16];
+        int size = 0;
+        for (int c = 0; c <= Character.MAX_CODE_POINT; c++) {
+            if (predicate.test(c)) {
+                if (size > 0 && out[size - 1] == c - 1) {
+                    out[size - 1] = c;
+                } else {
+                    if (size == out.length) {
+                        out = Arrays.copyOf(out, 2 * size);
+                    }
+                    out[size++] = c;
+                    out[size++] = c;
+                }
+            }
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static String format(int codePoint) {
+        return codePoint >= 0x21 && codePoint < 0x7f && "[]-\\".indexOf(codePoint) < 0
+                ? String.valueOf((char) codePoint)
+                : String.format("\\u{%x}", codePoint);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this
+                || o instanceof CharClass && Arrays.equals(ranges, ((CharClass) o).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ranges);
+    }
+
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * The ranges of all general categories, computed in a single pass over all code points on first use.
+     */
+    private static final class Categories {
+        private static final int[][] RANGES = compute();
+        private static final CharClass WHITESPACE = matching("whitespace", Character::isWhitespace);
+
+        private static int[][] compute() {
+            int[][] ranges = new int[CATEGORY_NAMES.length][16];
+            int[] sizes = new int[CATEGORY_NAMES.length];
+            for (int c = 0; c <= Character.MAX_CODE_POINT; c++) {
+                int type = Character.getType(c);
+                int[] r = ranges[type];
+                int size = sizes[type];
+                if (size > 0 && r[size - 1] == c - 1) {
+                    r[size - 1] = c;
+                } else {
+                    if (size == r.length) {
+                        r = ranges[type] = Arrays.copyOf(r, 2 * size);
+                    }
+                    r[size++] = c;
+                    r[size++] = c;
+                    sizes[type] = size;
+                }
+            }
+            for (int type = 0; type < ranges.length; type++) {
+                ranges[type] = Arrays.copyOf(ranges[type], sizes[type]);
+            }
+            return ranges;
+        }
+    }
+}
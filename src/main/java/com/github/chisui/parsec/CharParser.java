@@ -0,0 +1,25 @@
+package com.github.chisui.parsec;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Parser} of single {@code char}s that stores its result unboxed with {@link Result#succeedChar(char)}, see
+ * {@link IntParser}.
+ */
+public interface CharParser<E> extends ResultParser<E, Character> {
+
+    /**
+     * Parse like {@link #parseInto(Input, Result, Consumer)} but store a success with
+     * {@link Result#succeedChar(char)}.
+     *
+     * @return whether parsing succeeded
+     */
+    boolean parseChar(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException;
+
+    @Override
+    default boolean parseInto(Input in, Result<E, Character> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return parseChar(in, out, trace)
+                && out.succeed(out.getChar());
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.chisui.parsec;
+
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Collectors of characters into a {@link StringBuilder}. They are {@link UnboxedCollector}s, so repeating
+ * {@link Parser#character(java.nio.charset.Charset)} or {@link Parser#codePoint(java.nio.charset.Charset)} with them
+ * never boxes. The capacity is the number of {@code char}s expected.
+ */
+@NoArgsConstructor(access = PRIVATE)
+public final class Chars {
+    public static final int DEFAULT_CAPACITY = 16;
+
+    public static UnboxedCollector<Character, StringBuilder, String> string() {
+        return string(DEFAULT_CAPACITY);
+    }
+
+    public static UnboxedCollector<Character, StringBuilder, String> string(int capacity) {
+        return new CharCollector(capacity);
+    }
+
+    /**
+     * @return a collector of Unicode code points, including supplementary ones, into a {@link String}
+     */
+    public static UnboxedCollector<Integer, StringBuilder, String> codePoints() {
+        return codePoints(DEFAULT_CAPACITY);
+    }
+
+    public static UnboxedCollector<Integer, StringBuilder, String> codePoints(int capacity) {
+        return new CodePointCollector(capacity);
+    }
+
+    private abstract static class StringCollector<T> implements UnboxedCollector<T, StringBuilder, String> {
+        private final int capacity;
+
+        private StringCollector(int capacity) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Expected capacity to be non negative but got " + capacity);
+            }
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Supplier<StringBuilder> supplier() {
+            return () -> new StringBuilder(capacity);
+        }
+
+        @Override
+        public BinaryOperator<StringBuilder> combiner() {
+            return StringBuilder::append;
+        }
+
+        @Override
+        public Function<StringBuilder, String> finisher() {
+            return StringBuilder::toString;
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Collections.emptySet();
+        }
+    }
+
+    private static final class CharCollector extends StringCollector<Character> {
+
+        private CharCollector(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public <E> boolean accumulate(
+                Parser<E, Character> p,
+                Input in,
+                Result<E, ?> res,
+                StringBuilder acc,
+                Consumer<? super Parser<?, ?>> trace) throws IOException {
+            if (p instanceof CharParser) {
+                if (!((CharParser<E>) p).parseChar(in, res, trace)) {
+                    return false;
+                }
+                acc.append(res.getChar());
+            } else {
+                Result<E, Character> boxed = res.retype();
+                if (!p.parseInto(in, boxed, trace)) {
+                    return false;
+                }
+                acc.append(boxed.get().charValue());
+            }
+            return true;
+        }
+
+        @Override
+        public BiConsumer<StringBuilder, Character> accumulator() {
+            return StringBuilder::append;
+        }
+    }
+
+    private static final class CodePointCollector extends StringCollector<Integer> {
+
+        private CodePointCollector(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        public <E> boolean accumulate(
+                Parser<E, Integer> p,
+                Input in,
+                Result<E, ?> res,
+                StringBuilder acc,
+                Consumer<? super Parser<?, ?>> trace) throws IOException {
+            if (p instanceof IntParser) {
+                if (!((IntParser<E>) p).parseInt(in, res, trace)) {
+                    return false;
+                }
+                acc.appendCodePoint(res.getInt());
+            } else {
+                Result<E, Integer> boxed = res.retype();
+                if (!p.parseInto(in, boxed, trace)) {
+                    return false;
+                }
+                acc.appendCodePoint(boxed.get());
+            }
+            return true;
+        }
+
+        @Override
+        public BiConsumer<StringBuilder, Integer> accumulator() {
+            return StringBuilder::appendCodePoint;
+        }
+    }
+}
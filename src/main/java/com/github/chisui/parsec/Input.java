@@ -1,6 +1,8 @@
 package com.github.chisui.parsec;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -32,6 +34,17 @@ public interface Input extends AutoCloseable {
      */
     interface Marker extends AutoCloseable {
         void rewind() throws IOException;
+
+        /**
+         * Whether the input was {@link Input#cut() cut} behind this marker, so {@link #rewind()} would fail. Parsers
+         * that backtrack check it to fail with the error of a committed alternative instead of rewinding.
+         *
+         * @return true if this marker can no longer be rewound
+         */
+        default boolean isCut() {
+            return false;
+        }
+
         @Override
         default void close() throws IOException {
         }
@@ -48,6 +61,78 @@ public interface Input extends AutoCloseable {
         }
     }
 
+    /**
+     * The absolute position of the head, i.e. the number of bytes between the start of the input and the end of the
+     * last read {@link Chunk}. Rewinding a {@link Marker} restores the position it was created at.
+     *
+     * It is needed by {@link Parser#memo(Parser)}, {@link Parser#capture(Parser)}, {@link Parser#records(Input)} and
+     * {@link ParserProfiler}.
+     *
+     * @return the current position
+     */
+    long position();
+
+    /**
+     * Advance the head by exactly {@code count} bytes.
+     *
+     * @param count number of bytes to skip
+     * @throws EOFException if the input ends before {@code count} bytes were skipped
+     * @throws IOException if there was an error retrieving the data
+     */
+    default void skip(long count) throws IOException {
+        while (count > 0) {
+            Chunk read = read((int) Math.min(count, Integer.MAX_VALUE));
+            if (read.size() == 0 && read.isTail()) {
+                throw new EOFException("input ended " + count + " bytes before the skip target");
+            }
+            count -= read.size();
+        }
+    }
+
+    /**
+     * Declare that no {@link Marker} created before the current position will be rewound anymore. Inputs that buffer
+     * data for markers may release it, rewinding such a marker afterwards throws an {@link IOException}. Markers
+     * created at or after the current position are not affected. Closing invalidated markers is still allowed.
+     *
+     * All inputs of this library reject such rewinds and report them with {@link Marker#isCut()}, whether they buffer
+     * or not, so a grammar behaves the same on every input. Implementations should do the same, this default does not
+     * track the cut.
+     *
+     * @see Parser#commit(Parser)
+     */
+    default void cut() {
+    }
+
+    /**
+     * The last {@code length} bytes before the head, which were read since {@code start} was marked. The slice stays
+     * valid after the input moves on. Inputs that keep the whole input accessible return a view of it, others copy.
+     * This default rewinds to {@code start} and copies the bytes while reading them again.
+     *
+     * @param start a live marker created {@code length} bytes before the head
+     * @param length number of bytes
+     * @return the bytes between {@code start} and the head
+     * @throws IOException if the bytes are no longer available, e.g. after {@link #cut()}
+     * @see Parser#capture(Parser)
+     */
+    default ByteSlice slice(Marker start, int length) throws IOException {
+        start.rewind();
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            Chunk read = read(length - copied);
+            if (read.size() == 0 && read.isTail()) {
+                throw new EOFException("input ended " + (length - copied) + " bytes before the end of the slice");
+            }
+            if (read.hasArray()) {
+                System.arraycopy(read.volatileBytes(), read.start(), bytes, copied, read.size());
+            } else {
+                read.buffer().get(bytes, copied, read.size());
+            }
+            copied += read.size();
+        }
+        return ByteSlice.of(bytes);
+    }
+
     /**
      * Read up to size bytes from the input. read bytes will be in {@link Chunk#volatileBytes()} in the range between
      * {@link Chunk#start()} and up to {@link Chunk#end()}. Values of the array outside that range are undefined.
@@ -79,6 +164,36 @@ public interface Input extends AutoCloseable {
         default byte[] copy() {
             return Arrays.copyOfRange(volatileBytes(), start(), end());
         }
+
+        /**
+         * Whether {@link #volatileBytes()} is the storage the {@link Chunk} was read from. If not, calling
+         * {@link #volatileBytes()} copies the read bytes onto the heap and {@link #buffer()} should be preferred.
+         *
+         * @return true if {@link #volatileBytes()} does not copy
+         */
+        default boolean hasArray() {
+            return true;
+        }
+
+        /**
+         * The read bytes as a {@link ByteBuffer}. The bytes lie between {@link ByteBuffer#position()} and
+         * {@link ByteBuffer#limit()}, which is not necessarily the range between {@link #start()} and {@link #end()}.
+         * The buffer may be direct and shares the lifetime of the {@link Chunk}. Callers may move position and limit
+         * but must not write to it.
+         *
+         * @return a view of the read bytes
+         */
+        default ByteBuffer buffer() {
+            return ByteBuffer.wrap(volatileBytes(), start(), size());
+        }
+
+        /**
+         * @param i index relative to the first read byte
+         * @return the byte at {@code i}
+         */
+        default byte byteAt(int i) {
+            return volatileBytes()[start() + i];
+        }
     }
 
     @Override
@@ -0,0 +1,102 @@
+package com.github.chisui.parsec;
+
+/**
+ * The {@link InputMetrics} recorded by {@link StreamInput} and {@link InstrumentedInput}.
+ */
+final class InputCounters implements InputMetrics {
+    private long marksCreated;
+    private long marksClosed;
+    private long peakLiveMarkers;
+    private long rewinds;
+    private long bytesReread;
+    private long bufferedBytes;
+    private long peakBufferedBytes;
+    private long sourceReads;
+    private long sourceBytes;
+
+    void marked() {
+        marksCreated++;
+        peakLiveMarkers = Math.max(peakLiveMarkers, marksCreated - marksClosed);
+    }
+
+    void closed() {
+        marksClosed++;
+    }
+
+    void rewound(long distance) {
+        rewinds++;
+        bytesReread += distance;
+    }
+
+    void buffered(long bytes) {
+        bufferedBytes = bytes;
+        peakBufferedBytes = Math.max(peakBufferedBytes, bytes);
+    }
+
+    void sourceRead(int bytes) {
+        sourceReads++;
+        if (bytes > 0) {
+            sourceBytes += bytes;
+        }
+    }
+
+    @Override
+    public long getMarksCreated() {
+        return marksCreated;
+    }
+
+    @Override
+    public long getMarksClosed() {
+        return marksClosed;
+    }
+
+    @Override
+    public long getLiveMarkers() {
+        return marksCreated - marksClosed;
+    }
+
+    @Override
+    public long getPeakLiveMarkers() {
+        return peakLiveMarkers;
+    }
+
+    @Override
+    public long getRewinds() {
+        return rewinds;
+    }
+
+    @Override
+    public long getBytesReread() {
+        return bytesReread;
+    }
+
+    @Override
+    public long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    @Override
+    public long getPeakBufferedBytes() {
+        return peakBufferedBytes;
+    }
+
+    @Override
+    public long getSourceReads() {
+        return sourceReads;
+    }
+
+    @Override
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    public String toString() {
+        return "InputMetrics(marks=" + marksCreated + "/" + marksClosed
+                + ", peakLiveMarkers=" + peakLiveMarkers
+                + ", rewinds=" + rewinds
+                + ", bytesReread=" + bytesReread
+                + ", peakBufferedBytes=" + peakBufferedBytes
+                + ", sourceReads=" + sourceReads
+                + ", sourceBytes=" + sourceBytes + ")";
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import javax.management.JMException;
+import javax.management.MXBean;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counters describing how a parse used an {@link Input}: how many {@link Input.Marker}s were live, how often and how
+ * far parsers backtracked and how much had to be buffered for that. A growing {@link #getBytesReread()} points at
+ * backtracking blowups, a {@link #getPeakBufferedBytes()} close to the buffer limit of a {@link StreamInput} at
+ * markers that are held too long.
+ *
+ * Counters are updated by the parsing thread without synchronization, readers on other threads may see slightly
+ * stale values.
+ *
+ * @see StreamInput#metrics()
+ * @see InstrumentedInput
+ */
+@MXBean
+public interface InputMetrics {
+
+    long getMarksCreated();
+
+    long getMarksClosed();
+
+    /**
+     * @return markers created but not closed yet
+     */
+    long getLiveMarkers();
+
+    long getPeakLiveMarkers();
+
+    long getRewinds();
+
+    /**
+     * @return the sum of the distances rewinds moved the input back, i.e. bytes that are read again
+     */
+    long getBytesReread();
+
+    /**
+     * @return bytes currently held to serve reads and rewinds
+     */
+    long getBufferedBytes();
+
+    long getPeakBufferedBytes();
+
+    /**
+     * @return reads from the underlying source
+     */
+    long getSourceReads();
+
+    /**
+     * @return bytes read from the underlying source
+     */
+    long getSourceBytes();
+
+    default double getAverageBytesPerSourceRead() {
+        long reads = getSourceReads();
+        return reads == 0 ? 0 : (double) getSourceBytes() / reads;
+    }
+
+    /**
+     * Register {@code metrics} with the platform MBean server.
+     *
+     * @param name the name to register under, e.g. {@code com.github.chisui.parsec:type=Input,name=requests}
+     * @return the registered name, to unregister the MBean with once the input is closed
+     * @throws JMException if the name is malformed or already registered
+     */
+    static ObjectName register(@NonNull InputMetrics metrics, @NonNull String name) throws JMException {
+        ObjectName objectName = new ObjectName(name);
+        ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(new StandardMBean(metrics, InputMetrics.class, true), objectName);
+        return objectName;
+    }
+}
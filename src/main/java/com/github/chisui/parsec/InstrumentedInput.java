@@ -0,0 +1,146 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Records {@link InputMetrics} for any {@link Input}. Since it can not see into the wrapped input,
+ * {@link InputMetrics#getBufferedBytes()} is the distance from the oldest live {@link Marker} to the head, i.e. the
+ * bytes any input has to retain, and source reads are the calls to {@link #read(int)}. Distances are measured from
+ * the reads, skips and rewinds that pass through this input.
+ */
+public final class InstrumentedInput implements Input {
+    private final Input in;
+    private final InputCounters metrics = new InputCounters();
+    /** bytes read or skipped through this input, minus the rewound ones */
+    private long head;
+    /** positions of the live markers */
+    private long[] markers = new long[8];
+    private int markerCount;
+    /** position of the oldest live marker */
+    private long oldest;
+
+    private InstrumentedInput(Input in) {
+        this.in = in;
+    }
+
+    public static InstrumentedInput of(@NonNull Input in) {
+        return new InstrumentedInput(in);
+    }
+
+    public InputMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public Input.Marker mark() {
+        Input.Marker m = in.mark();
+        if (markerCount == markers.length) {
+            markers = Arrays.copyOf(markers, markers.length * 2);
+        }
+        if (markerCount == 0 || head < oldest) {
+            oldest = head;
+        }
+        markers[markerCount++] = head;
+        metrics.marked();
+        return new Marker(m, head);
+    }
+
+    private final class Marker implements Input.Marker {
+        private final Input.Marker m;
+        private final long position;
+        private boolean closed;
+
+        private Marker(Input.Marker m, long position) {
+            this.m = m;
+            this.position = position;
+        }
+
+        @Override
+        public void rewind() throws IOException {
+            m.rewind();
+            metrics.rewound(head - position);
+            head = position;
+        }
+
+        @Override
+        public boolean isCut() {
+            return m.isCut();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                metrics.closed();
+                release(position);
+            }
+            m.close();
+        }
+    }
+
+    @Override
+    public void cut() {
+        int kept = 0;
+        for (int i = 0; i < markerCount; i++) {
+            if (markers[i] >= head) {
+                markers[kept++] = markers[i];
+            }
+        }
+        markerCount = kept;
+        updateOldest();
+        in.cut();
+    }
+
+    private void release(long position) {
+        for (int i = markerCount - 1; i >= 0; i--) {
+            if (markers[i] == position) {
+                System.arraycopy(markers, i + 1, markers, i, markerCount - i - 1);
+                markerCount--;
+                break;
+            }
+        }
+        if (position == oldest) {
+            updateOldest();
+        }
+    }
+
+    private void updateOldest() {
+        oldest = head;
+        for (int i = 0; i < markerCount; i++) {
+            oldest = Math.min(oldest, markers[i]);
+        }
+    }
+
+    @Override
+    public long position() {
+        return in.position();
+    }
+
+    @Override
+    public void skip(long count) throws IOException {
+        in.skip(count);
+        head += count;
+    }
+
+    @Override
+    public ByteSlice slice(Input.Marker start, int length) throws IOException {
+        return in.slice(start instanceof Marker ? ((Marker) start).m : start, length);
+    }
+
+    @Override
+    public Chunk read(int size) throws IOException {
+        Chunk read = in.read(size);
+        head += read.size();
+        metrics.sourceRead(read.size());
+        metrics.buffered(markerCount == 0 ? 0 : head - oldest);
+        return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
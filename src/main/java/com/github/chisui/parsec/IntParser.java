@@ -0,0 +1,64 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.IntFiltered;
+import com.github.chisui.parsec.base.IntFollowedBy;
+import com.github.chisui.parsec.base.IntMapped;
+import com.github.chisui.parsec.base.MappedToInt;
+import io.vavr.control.Either;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A {@link Parser} of {@code int}s that stores its result unboxed with {@link Result#succeedInt(int)}. Parsers built
+ * from {@link IntParser}s, like {@link #mapInt(IntUnaryOperator)} or
+ * {@link Parser#foldInt(IntParser, int, IntBinaryOperator)}, call {@link #parseInt(Input, Result, Consumer)} and never
+ * box. Used as a regular {@link Parser} the result is boxed once.
+ */
+public interface IntParser<E> extends ResultParser<E, Integer> {
+
+    /**
+     * Parse like {@link #parseInto(Input, Result, Consumer)} but store a success with {@link Result#succeedInt(int)}.
+     *
+     * @return whether parsing succeeded
+     */
+    boolean parseInt(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException;
+
+    @Override
+    default boolean parseInto(Input in, Result<E, Integer> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return parseInt(in, out, trace)
+                && out.succeed(out.getInt());
+    }
+
+    default IntParser<E> mapInt(@NonNull IntUnaryOperator f) {
+        return new IntMapped<>(this, f);
+    }
+
+    /**
+     * @return a parser that fails with {@code Right(value)} if {@code p} does not hold for the parsed value
+     */
+    default IntParser<Either<E, Integer>> filterInt(@NonNull IntPredicate p) {
+        return new IntFiltered<>(this, p);
+    }
+
+    /**
+     * @return a parser that keeps the unboxed value of this parser if {@code p} succeeds after it
+     */
+    @Override
+    default <B> IntParser<E> followedBy(@NonNull Parser<? extends E, ? extends B> p) {
+        return new IntFollowedBy<>(this, Parser.<E, B>narrow(p));
+    }
+
+    /**
+     * @return {@code p} itself if it is an {@link IntParser}, otherwise {@code p} unboxing its result
+     */
+    static <E> IntParser<E> of(@NonNull Parser<E, Integer> p) {
+        return p instanceof IntParser
+                ? (IntParser<E>) p
+                : new MappedToInt<>(p, Integer::intValue);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.LongFiltered;
+import com.github.chisui.parsec.base.LongFollowedBy;
+import com.github.chisui.parsec.base.LongMapped;
+import com.github.chisui.parsec.base.MappedToLong;
+import io.vavr.control.Either;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A {@link Parser} of {@code long}s that stores its result unboxed with {@link Result#succeedLong(long)}. Parsers built
+ * from {@link LongParser}s, like {@link #mapLong(LongUnaryOperator)} or
+ * {@link Parser#foldLong(LongParser, long, LongBinaryOperator)}, call {@link #parseLong(Input, Result, Consumer)} and
+ * never box. Used as a regular {@link Parser} the result is boxed once.
+ */
+public interface LongParser<E> extends ResultParser<E, Long> {
+
+    /**
+     * Parse like {@link #parseInto(Input, Result, Consumer)} but store a success with {@link Result#succeedLong(long)}.
+     *
+     * @return whether parsing succeeded
+     */
+    boolean parseLong(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException;
+
+    @Override
+    default boolean parseInto(Input in, Result<E, Long> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return parseLong(in, out, trace)
+                && out.succeed(out.getLong());
+    }
+
+    default LongParser<E> mapLong(@NonNull LongUnaryOperator f) {
+        return new LongMapped<>(this, f);
+    }
+
+    /**
+     * @return a parser that fails with {@code Right(value)} if {@code p} does not hold for the parsed value
+     */
+    default LongParser<Either<E, Long>> filterLong(@NonNull LongPredicate p) {
+        return new LongFiltered<>(this, p);
+    }
+
+    /**
+     * @return a parser that keeps the unboxed value of this parser if {@code p} succeeds after it
+     */
+    @Override
+    default <B> LongParser<E> followedBy(@NonNull Parser<? extends E, ? extends B> p) {
+        return new LongFollowedBy<>(this, Parser.<E, B>narrow(p));
+    }
+
+    /**
+     * @return {@code p} itself if it is an {@link LongParser}, otherwise {@code p} unboxing its result
+     */
+    static <E> LongParser<E> of(@NonNull Parser<E, Long> p) {
+        return p instanceof LongParser
+                ? (LongParser<E>) p
+                : new MappedToLong<>(p, Long::longValue);
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.chisui.parsec;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.lang.Math.min;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * An {@link Input} backed by a memory mapped file. The file is mapped in segments of {@link #segmentSize()} bytes
+ * which are remapped on demand, so files larger than 2 GiB are supported. Since the whole file is always accessible
+ * {@link Marker}s are plain offsets and may be arbitrarily far behind the head.
+ *
+ * Chunks are views of the mapping, see {@link Chunk#buffer()}. A {@link Chunk} never spans two segments, so
+ * {@link #read(int)} may return fewer bytes than requested at a segment boundary. {@link #slice(Input.Marker, int)}
+ * returns views of the mapping unless the slice spans two segments.
+ */
+public class MappedInput implements Input {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    @Getter
+    private final int segmentSize;
+    @Getter
+    private final long size;
+    private final Window window = new Window();
+    private ByteBuffer segment = EMPTY;
+    private long segmentStart;
+    private long position;
+    /** markers before this position were invalidated by {@link #cut()} */
+    private long cut;
+
+    public static MappedInput of(@NonNull Path path) throws IOException {
+        return of(path, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens {@code path} for reading. The channel is closed with the input, or right away if the input can not be
+     * created.
+     */
+    public static MappedInput of(@NonNull Path path, int segmentSize) throws IOException {
+        requirePositive("segmentSize", segmentSize);
+        FileChannel channel = FileChannel.open(path, READ);
+        try {
+            return of(channel, segmentSize);
+        } catch (Throwable e) {
+            try {
+                channel.close();
+            } catch (Throwable suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    public static MappedInput of(@NonNull FileChannel channel) throws IOException {
+        return of(channel, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public static MappedInput of(@NonNull FileChannel channel, int segmentSize) throws IOException {
+        return new MappedInput(channel, requirePositive("segmentSize", segmentSize), channel.size());
+    }
+
+    private MappedInput(FileChannel channel, int segmentSize, long size) {
+        this.channel = channel;
+        this.segmentSize = segmentSize;
+        this.size = size;
+    }
+
+    /**
+     * Serves reads straight from the mapped segment. Only {@link #volatileBytes()} copies, into a reused array.
+     */
+    private class Window implements Chunk {
+        private byte[] volatileBytes = new byte[0];
+        private boolean copied;
+        private int offset;
+        private int end;
+
+        @Override
+        public boolean hasArray() {
+            return false;
+        }
+
+        @Override
+        public ByteBuffer buffer() {
+            segment.limit(offset + end);
+            segment.position(offset);
+            return segment;
+        }
+
+        @Override
+        public byte byteAt(int i) {
+            return segment.get(offset + i);
+        }
+
+        @Override
+        public byte[] copy() {
+            byte[] bytes = new byte[end];
+            buffer().get(bytes);
+            return bytes;
+        }
+
+        @Override
+        public byte[] volatileBytes() {
+            if (!copied) {
+                if (volatileBytes.length < end) {
+                    volatileBytes = new byte[end];
+                }
+                buffer().get(volatileBytes, 0, end);
+                copied = true;
+            }
+            return volatileBytes;
+        }
+
+        @Override
+        public int start() {
+            return 0;
+        }
+
+        @Override
+        public int end() {
+            return end;
+        }
+
+        @Override
+        public boolean isTail() {
+            return position == size;
+        }
+
+        private Window fill(int offset, int length) {
+            this.offset = offset;
+            this.end = length;
+            this.copied = false;
+            return this;
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public Marker mark() {
+        long mark = position;
+        return new Marker() {
+            @Override
+            public void rewind() throws IOException {
+                if (isCut()) {
+                    throw new IOException("Can not rewind to position " + mark + " before cut at " + cut);
+                }
+                position = mark;
+            }
+
+            @Override
+            public boolean isCut() {
+                return mark < cut;
+            }
+        };
+    }
+
+    @Override
+    public void cut() {
+        cut = position;
+    }
+
+    @Override
+    public ByteSlice slice(Input.Marker start, int length) throws IOException {
+        int offset = (int) (position - length - segmentStart);
+        if (position - length < segmentStart || offset + length > segment.capacity()) {
+            return Input.super.slice(start, length);
+        }
+        ByteBuffer view = segment.duplicate();
+        view.limit(offset + length);
+        view.position(offset);
+        return ByteSlice.of(view);
+    }
+
+    @Override
+    public Chunk read(int size) throws IOException {
+        if (position == this.size) {
+            return window.fill(0, 0);
+        }
+        if (position < segmentStart || position >= segmentStart + segment.capacity()) {
+            remap();
+        }
+        int offset = (int) (position - segmentStart);
+        int length = min(size, segment.capacity() - offset);
+        position += length;
+        return window.fill(offset, length);
+    }
+
+    private void remap() throws IOException {
+        segmentStart = position - position % segmentSize;
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, min(segmentSize, size - segmentStart))
+                .asReadOnlyBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = EMPTY;
+        channel.close();
+    }
+
+    private static int requirePositive(String name, int i) {
+        if (i <= 0) {
+            throw new IllegalArgumentException("Expected " + name + " to be positive but got " + i);
+        }
+        return i;
+    }
+}
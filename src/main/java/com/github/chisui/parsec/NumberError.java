@@ -0,0 +1,11 @@
+package com.github.chisui.parsec;
+
+/**
+ * Errors of the numeric parsers like {@link Parser#decimalLong()}.
+ */
+public enum NumberError {
+    /** the input does not start with a digit, after an optional sign */
+    NO_DIGITS,
+    /** the number does not fit the result type */
+    OVERFLOW,
+}
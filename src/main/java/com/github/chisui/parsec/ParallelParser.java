@@ -0,0 +1,339 @@
+package com.github.chisui.parsec;
+
+import io.vavr.control.Option;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses inputs of delimiter separated records on a {@link ForkJoinPool}. The input is split into shards of about
+ * {@link #shardSize()} bytes that end right after a delimiter, and each shard is parsed with
+ * {@link Parser#records(Input)}. The record parser consumes its own delimiter just like it would when parsing the
+ * whole input sequentially, the delimiter is only used to align the shards, so it must not occur inside records.
+ *
+ * Only a bounded number of shards is parsed ahead of the consumer, so memory scales with the shard size and the
+ * parallelism of the pool instead of the size of the input. The record parser is used by several threads at once.
+ */
+@Value
+public class ParallelParser<E, R> {
+    public static final int DEFAULT_SHARD_SIZE = 4 * 1024 * 1024;
+
+    @NonNull Parser<E, R> record;
+    byte delimiter;
+    int shardSize;
+    @NonNull ForkJoinPool pool;
+
+    public static <E, R> ParallelParser<E, R> of(@NonNull Parser<E, R> record, byte delimiter) {
+        return of(record, delimiter, DEFAULT_SHARD_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public static <E, R> ParallelParser<E, R> of(
+            @NonNull Parser<E, R> record,
+            byte delimiter,
+            int shardSize,
+            @NonNull ForkJoinPool pool) {
+        if (shardSize < 1) {
+            throw new IllegalArgumentException("Expected shardSize to be positive but got " + shardSize);
+        }
+        return new ParallelParser<>(record, delimiter, shardSize, pool);
+    }
+
+    /**
+     * The records of one shard.
+     */
+    @Value
+    public static class Shard<R> {
+        int index;
+        /** position of the first byte of the shard in the input */
+        long start;
+        /** position after the last byte of the shard in the input */
+        long end;
+        /** the records parsed before the shard ended or failed */
+        List<R> records;
+        /** the failure that ended the shard, its record index counts from the start of the shard */
+        Option<ParseFailure> failure;
+    }
+
+    /**
+     * Parse all shards. Failures are reported per shard and do not stop the other shards from being parsed.
+     *
+     * @return all shards in input order
+     */
+    public List<Shard<R>> shards(@NonNull Source source) {
+        List<Shard<R>> shards = new ArrayList<>();
+        new Shards<>(source, this::parseShard).forEachRemaining(shards::add);
+        return shards;
+    }
+
+    /**
+     * The records in input order, like {@link Parser#stream(Input)} on the whole input. The first failed record is
+     * thrown as a {@link ParseFailure} once the stream reaches it.
+     *
+     * @return an ordered stream of all records
+     */
+    public Stream<R> stream(@NonNull Source source) {
+        Iterator<R> records = new Iterator<R>() {
+            private final Iterator<Shard<R>> shards = new Shards<>(source, ParallelParser.this::parseShard);
+            private Iterator<R> current = Collections.emptyIterator();
+            private Option<ParseFailure> failure = Option.none();
+            private long count;
+            private long shardStart;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (failure.isDefined()) {
+                        ParseFailure e = failure.get();
+                        throw new ParseFailure(e.error(), e.position(), shardStart + e.record());
+                    }
+                    if (!shards.hasNext()) {
+                        return false;
+                    }
+                    Shard<R> shard = shards.next();
+                    current = shard.records.iterator();
+                    failure = shard.failure;
+                    shardStart = count;
+                }
+                return true;
+            }
+
+            @Override
+            public R next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                count++;
+                return current.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Collect all records. Each shard accumulates into a container of its own and the containers are combined in
+     * input order, so records are never materialized per shard.
+     *
+     * @throws ParseFailure of the first shard that failed, its record index counts from the start of the shard
+     */
+    public <A, S> S collect(@NonNull Source source, @NonNull Collector<? super R, A, S> collector) {
+        Iterator<Collected<A>> shards = new Shards<>(source, (index, start, bytes) -> collectShard(start, bytes, collector));
+        A acc = collector.supplier().get();
+        while (shards.hasNext()) {
+            Collected<A> shard = shards.next();
+            if (shard.failure != null) {
+                throw shard.failure;
+            }
+            acc = collector.combiner().apply(acc, shard.acc);
+        }
+        return collector.finisher().apply(acc);
+    }
+
+    private Shard<R> parseShard(int index, long start, ByteBuffer bytes) {
+        long end = start + bytes.remaining();
+        List<R> records = new ArrayList<>();
+        ParseFailure failure = parse(start, bytes, records::add);
+        return new Shard<>(index, start, end, records, Option.of(failure));
+    }
+
+    private <A> Collected<A> collectShard(long start, ByteBuffer bytes, Collector<? super R, A, ?> collector) {
+        A acc = collector.supplier().get();
+        BiConsumer<A, ? super R> accumulator = collector.accumulator();
+        ParseFailure failure = parse(start, bytes, r -> accumulator.accept(acc, r));
+        return new Collected<>(acc, failure);
+    }
+
+    private ParseFailure parse(long start, ByteBuffer bytes, Consumer<R> sink) {
+        Iterator<R> records = record.records(ByteBufferInput.of(bytes));
+        try {
+            while (records.hasNext()) {
+                sink.accept(records.next());
+            }
+            return null;
+        } catch (ParseFailure e) {
+            return new ParseFailure(e.error(), start + e.position(), e.record());
+        }
+    }
+
+    private static final class Collected<A> {
+        private final A acc;
+        private final ParseFailure failure;
+
+        private Collected(A acc, ParseFailure failure) {
+            this.acc = acc;
+            this.failure = failure;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardParser<T> {
+        T parse(int index, long start, ByteBuffer bytes);
+    }
+
+    /**
+     * Submits shards to the pool in input order, keeping twice the parallelism of the pool in flight.
+     */
+    private final class Shards<T> implements Iterator<T> {
+        private final Source source;
+        private final ShardParser<T> parser;
+        private final ArrayDeque<ForkJoinTask<T>> inFlight = new ArrayDeque<>();
+        private final int window = 2 * pool.getParallelism();
+        private int index;
+        private long next;
+
+        private Shards(Source source, ShardParser<T> parser) {
+            this.source = source;
+            this.parser = parser;
+        }
+
+        private void fill() {
+            try {
+                while (inFlight.size() < window && next < source.size()) {
+                    long start = next;
+                    long end = source.boundary(start + shardSize, delimiter);
+                    ByteBuffer bytes = source.slice(start, end);
+                    int i = index++;
+                    inFlight.add(pool.submit(() -> parser.parse(i, start, bytes)));
+                    next = end;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return !inFlight.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return inFlight.poll().join();
+        }
+    }
+
+    /**
+     * Random access to the bytes of an input, either in memory or in a file.
+     */
+    public interface Source extends Closeable {
+
+        long size() throws IOException;
+
+        /**
+         * @return the position right after the first {@code delimiter} at or after {@code from}, or {@link #size()}
+         */
+        long boundary(long from, byte delimiter) throws IOException;
+
+        ByteBuffer slice(long start, long end) throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+
+        static Source of(@NonNull byte[] bytes) {
+            return of(ByteBuffer.wrap(bytes));
+        }
+
+        /**
+         * @param buffer the input between its position and limit, which are not modified
+         */
+        static Source of(@NonNull ByteBuffer buffer) {
+            ByteBuffer bytes = buffer.slice();
+            return new Source() {
+                @Override
+                public long size() {
+                    return bytes.limit();
+                }
+
+                @Override
+                public long boundary(long from, byte delimiter) {
+                    for (int i = (int) Math.min(from, bytes.limit()); i < bytes.limit(); i++) {
+                        if (bytes.get(i) == delimiter) {
+                            return i + 1;
+                        }
+                    }
+                    return bytes.limit();
+                }
+
+                @Override
+                public ByteBuffer slice(long start, long end) {
+                    ByteBuffer slice = bytes.duplicate();
+                    slice.position((int) start);
+                    slice.limit((int) end);
+                    return slice.slice();
+                }
+            };
+        }
+
+        /**
+         * Map the shards of a file into memory one at a time. Files may be larger than 2 GiB, single shards may not.
+         */
+        static Source of(@NonNull Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new Source() {
+                private final ByteBuffer scan = ByteBuffer.allocate(8192);
+
+                @Override
+                public long size() throws IOException {
+                    return channel.size();
+                }
+
+                @Override
+                public long boundary(long from, byte delimiter) throws IOException {
+                    long position = from;
+                    while (true) {
+                        scan.clear();
+                        int n = channel.read(scan, position);
+                        if (n < 0) {
+                            return channel.size();
+                        }
+                        for (int i = 0; i < n; i++) {
+                            if (scan.get(i) == delimiter) {
+                                return position + i + 1;
+                            }
+                        }
+                        position += n;
+                    }
+                }
+
+                @Override
+                public ByteBuffer slice(long start, long end) throws IOException {
+                    if (end - start > Integer.MAX_VALUE) {
+                        throw new IOException("shard from " + start + " to " + end + " exceeds 2 GiB");
+                    }
+                    return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    channel.close();
+                }
+            };
+        }
+    }
+}
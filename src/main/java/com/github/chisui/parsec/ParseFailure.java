@@ -0,0 +1,50 @@
+package com.github.chisui.parsec;
+
+import java.util.Arrays;
+
+/**
+ * Thrown by the iterators and streams of {@link Parser#records(Input)} when a record can not be parsed.
+ */
+public class ParseFailure extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object error;
+    private final long position;
+    private final long record;
+
+    public ParseFailure(Object error, long position, long record) {
+        super("record " + record + " at position " + position + " failed with " + format(error), null, false, false);
+        this.error = error;
+        this.position = position;
+        this.record = record;
+    }
+
+    /**
+     * @return {@code error} with the elements of arrays, e.g. the {@code byte[]} errors of character parsers
+     */
+    private static String format(Object error) {
+        String wrapped = Arrays.deepToString(new Object[] {error});
+        return wrapped.substring(1, wrapped.length() - 1);
+    }
+
+    /**
+     * @return the error of the record parser
+     */
+    public Object error() {
+        return error;
+    }
+
+    /**
+     * @return the position of the input at which the failed record started
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * @return the zero based index of the failed record
+     */
+    public long record() {
+        return record;
+    }
+}
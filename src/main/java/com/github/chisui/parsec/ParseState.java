@@ -0,0 +1,312 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.StackSafe;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Push based parsing for inputs that arrive in fragments, e.g. on event loop threads. Fragments are handed to
+ * {@link #feed(ByteBuffer)} as they arrive and {@link #endOfInput()} is called once no more will follow. Each call
+ * returns whether the parser is done, failed or needs more input, without ever blocking.
+ *
+ * The parser is run like {@link Parser#stackSafe(Parser)} runs it, with its combinators on a stack of frames on the
+ * heap, and is suspended when it runs out of fed bytes. The next {@link #feed(ByteBuffer)} continues where it
+ * stopped, so sequences, repetitions, alternatives and {@link Parser#expect(byte[])} keep their progress and their
+ * functions and collectors are applied once. Other parsers, e.g. {@link Parser#decimalLong()} or the functions of
+ * {@link Parser#capture(Parser)}, are started again from where they began, so their functions may be applied more
+ * than once and should be free of side effects. Fed bytes are only buffered as long as a {@link Input.Marker} may
+ * return to them, i.e. from the start of the innermost open alternative or repetition, or everything after a
+ * {@link Parser#commit(Parser)}.
+ *
+ * @see Parser#start()
+ */
+public final class ParseState<E, R> {
+
+    private final FeedInput in = new FeedInput();
+    private final Result<E, R> out = new Result<>();
+    private final StackSafe.Run<E, R> run;
+    private Step<E, R> step = Partial.instance();
+
+    private ParseState(Parser<E, R> parser) {
+        this.run = StackSafe.Run.of(parser, in, out);
+    }
+
+    public static <E, R> ParseState<E, R> of(@NonNull Parser<E, R> parser) {
+        return new ParseState<>(parser);
+    }
+
+    /**
+     * The outcome of the bytes fed so far.
+     */
+    public interface Step<E, R> {
+        default boolean isPartial() {
+            return false;
+        }
+    }
+
+    /**
+     * More input is needed.
+     */
+    public static final class Partial<E, R> implements Step<E, R> {
+        private static final Partial<?, ?> INSTANCE = new Partial<>();
+
+        private Partial() {
+        }
+
+        @SuppressWarnings({
+                "unchecked", // carries no values
+        })
+        public static <E, R> Partial<E, R> instance() {
+            return (Partial<E, R>) INSTANCE;
+        }
+
+        @Override
+        public boolean isPartial() {
+            return true;
+        }
+
+        public String toString() {
+            return "Partial";
+        }
+    }
+
+    /**
+     * The parser succeeded with {@link #value()}. {@link #remaining()} holds the fed bytes it did not consume.
+     */
+    @Value
+    public static class Done<E, R> implements Step<E, R> {
+        R value;
+        @NonNull ByteBuffer remaining;
+    }
+
+    /**
+     * The parser failed with {@link #error()} at {@link #position()}.
+     */
+    @Value
+    public static class Failed<E, R> implements Step<E, R> {
+        E error;
+        long position;
+    }
+
+    public Step<E, R> step() {
+        return step;
+    }
+
+    /**
+     * @return the number of fed bytes that are still buffered
+     */
+    int buffered() {
+        return in.length;
+    }
+
+    /**
+     * Feed the remaining bytes of {@code bytes}, which are copied.
+     *
+     * @return the outcome so far
+     * @throws IllegalStateException if the parser is already done, failed or the end of input was signalled
+     * @throws IOException if the parser throws one
+     */
+    public Step<E, R> feed(@NonNull ByteBuffer bytes) throws IOException {
+        requirePartial();
+        if (in.ended) {
+            throw new IllegalStateException("feed after endOfInput");
+        }
+        if (!bytes.hasRemaining()) {
+            return step;
+        }
+        in.append(bytes);
+        return run();
+    }
+
+    public Step<E, R> feed(@NonNull byte[] bytes) throws IOException {
+        return feed(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Signal that no more bytes will be fed. The result is never {@link Partial}.
+     *
+     * @return the final outcome
+     * @throws IOException if the parser throws one
+     */
+    public Step<E, R> endOfInput() throws IOException {
+        if (!in.ended) {
+            requirePartial();
+            in.ended = true;
+            run();
+        }
+        return step;
+    }
+
+    private void requirePartial() {
+        if (!step.isPartial()) {
+            throw new IllegalStateException("parser already finished with " + step);
+        }
+    }
+
+    private Step<E, R> run() throws IOException {
+        if (run.resume()) {
+            step = out.isSuccess()
+                    ? new Done<>(out.get(), in.remaining())
+                    : new Failed<>(out.getError(), in.position());
+        }
+        return step;
+    }
+
+    /**
+     * Thrown by the {@link Input} of a parse state to suspend a parser that read all fed bytes before the end of
+     * input. It never escapes {@link #feed(ByteBuffer)}.
+     */
+    public static final class NeedInput extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private static final NeedInput INSTANCE = new NeedInput();
+
+        private NeedInput() {
+            super("need more input", null, false, false);
+        }
+    }
+
+    /**
+     * The fed bytes from the oldest position a live {@link Marker} or the head may return to. Bytes before it are
+     * dropped when more bytes are fed, into a new buffer, so {@link ByteSlice}s of the old one stay valid.
+     */
+    private static final class FeedInput implements Input, Input.Chunk {
+        private byte[] buffer = new byte[256];
+        /** absolute position of {@code buffer[0]} */
+        private long base;
+        private int length;
+        private int start;
+        private int end;
+        private long cut;
+        private boolean ended;
+        private final List<FeedMarker> markers = new ArrayList<>();
+
+        private void append(ByteBuffer bytes) {
+            int n = bytes.remaining();
+            if (length + n > buffer.length) {
+                int keep = end;
+                for (FeedMarker m : markers) {
+                    if (m.position >= cut) {
+                        keep = (int) Math.min(keep, m.position - base);
+                    }
+                }
+                int live = length - keep;
+                byte[] next = new byte[Math.max(256, 2 * (live + n))];
+                System.arraycopy(buffer, keep, next, 0, live);
+                buffer = next;
+                base += keep;
+                length = live;
+                start = Math.max(0, start - keep);
+                end -= keep;
+            }
+            bytes.get(buffer, length, n);
+            length += n;
+        }
+
+        private ByteBuffer remaining() {
+            return ByteBuffer.wrap(Arrays.copyOfRange(buffer, end, length));
+        }
+
+        @Override
+        public byte[] volatileBytes() {
+            return buffer;
+        }
+
+        @Override
+        public int start() {
+            return start;
+        }
+
+        @Override
+        public int end() {
+            return end;
+        }
+
+        @Override
+        public boolean isTail() {
+            return ended && end == length;
+        }
+
+        @Override
+        public long position() {
+            return base + end;
+        }
+
+        @Override
+        public Marker mark() {
+            FeedMarker m = new FeedMarker(position());
+            markers.add(m);
+            return m;
+        }
+
+        @Override
+        public void cut() {
+            cut = position();
+        }
+
+        /**
+         * Fed bytes are never overwritten, so slices are views of the buffer.
+         */
+        @Override
+        public ByteSlice slice(Marker start, int length) throws IOException {
+            if (length > end) {
+                throw new IOException("slice of " + length + " bytes reaches behind the buffered input");
+            }
+            return ByteSlice.of(buffer, end - length, length);
+        }
+
+        /**
+         * Never reports the end of the fed bytes as a short read, so parsers can not mistake it for the end of input.
+         */
+        @Override
+        public Chunk read(int size) {
+            if (end == length && !ended) {
+                throw NeedInput.INSTANCE;
+            }
+            start = end;
+            end += Math.min(size, length - end);
+            return this;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private final class FeedMarker implements Marker {
+            private final long position;
+
+            private FeedMarker(long position) {
+                this.position = position;
+            }
+
+            @Override
+            public void rewind() throws IOException {
+                if (position < cut || position < base) {
+                    throw new IOException("marker at " + position + " was cut");
+                }
+                start = (int) (position - base);
+                end = start;
+            }
+
+            @Override
+            public boolean isCut() {
+                return position < cut;
+            }
+
+            @Override
+            public void close() {
+                for (int i = markers.size() - 1; i >= 0; i--) {
+                    if (markers.get(i) == this) {
+                        markers.remove(i);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
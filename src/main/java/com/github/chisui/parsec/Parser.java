@@ -8,10 +8,19 @@ import lombok.NonNull;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.github.chisui.parsec.base.Id.id;
 import static com.github.chisui.parsec.base.NamedFunction.named;
@@ -20,16 +29,126 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 public interface Parser<E, R> {
 
+    /**
+     * The trace used by {@link #parse(Input)}. Parsers skip calling it, so not tracing costs a reference comparison.
+     */
+    Consumer<Parser<?, ?>> NO_TRACE = any -> {};
+
+    /**
+     * Report {@code p} to {@code trace} unless it is {@link #NO_TRACE}. Parsers call it when they start.
+     */
+    static void traced(Consumer<? super Parser<?, ?>> trace, Parser<?, ?> p) {
+        if (trace != NO_TRACE) {
+            trace.accept(p);
+        }
+    }
+
     default Either<E, R> parse(Input in) throws IOException {
-        return parse(in, any -> {});
+        Result<E, R> out = new Result<>();
+        parseInto(in, out, NO_TRACE);
+        return out.toEither();
     }
 
     Either<E, R> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException;
 
+    /**
+     * Parse like {@link #parse(Input, Consumer)} but store the outcome in {@code out} instead of creating an
+     * {@link Either}. Parsers that combine other parsers pass {@code out} on to them, see {@link ResultParser}.
+     *
+     * @return whether parsing succeeded
+     */
+    default boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return out.set(parse(in, trace));
+    }
+
+    /**
+     * Lazily parse {@code in} as a sequence of records until it ends. Each {@link Iterator#next()} parses one record
+     * and then {@link Input#cut() cuts} the input, so unlike {@link #zeroOrMore(Parser)} memory scales with the size of
+     * a record instead of the size of the input.
+     *
+     * A record that fails is thrown as a {@link ParseFailure}, {@link IOException}s as
+     * {@link java.io.UncheckedIOException}. The input is not closed.
+     *
+     * @return an iterator over the records of {@code in}
+     */
+    default Iterator<R> records(@NonNull Input in) {
+        return new Records<>(this, in);
+    }
+
+    /**
+     * {@link #records(Input)} as a sequential {@link Stream}.
+     */
+    default Stream<R> stream(@NonNull Input in) {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(records(in), Spliterator.ORDERED),
+                false);
+    }
+
+    /**
+     * Start a push based parse that is fed bytes as they arrive, see {@link ParseState}.
+     *
+     * @return a new {@link ParseState} waiting for input
+     */
+    default ParseState<E, R> start() {
+        return ParseState.of(this);
+    }
+
+    /**
+     * Simplify this parser once at construction, see {@link ParserOptimizer}. Use
+     * {@link ParserOptimizer#optimize(Parser)} to see which rewrites were applied.
+     *
+     * @return an equivalent parser
+     */
+    default Parser<E, R> optimize() {
+        return ParserOptimizer.create().optimize(this);
+    }
+
+    /**
+     * The lookaheads under which this parser may succeed. Used by {@link #or(Parser[])} to skip alternatives that
+     * are guaranteed to fail. Parsers that can not tell have to return {@link FirstSet#ALL}.
+     *
+     * @return the {@link FirstSet} of this parser
+     */
+    default FirstSet firstSet() {
+        return FirstSet.ALL;
+    }
+
+    /**
+     * This parser with every parser it directly delegates to replaced by the result of {@code f}. Parsers that are
+     * produced while parsing, like the continuations of {@link #flatMap(Function)}, are rewritten when they are
+     * produced. Parsers without children return themselves.
+     *
+     * @param f the rewrite to apply to the children
+     * @return an equivalent parser with rewritten children
+     */
+    default Parser<E, R> mapChildren(@NonNull Rewrite f) {
+        return this;
+    }
+
     default <S> Parser<E, S> map(@NonNull Function<? super R, ? extends S> f) {
         return bimap(id(), f);
     }
 
+    /**
+     * @return an {@link IntParser} that stores the result of {@code f} unboxed
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // narrow ToIntFunction
+    })
+    default IntParser<E> mapToInt(@NonNull ToIntFunction<? super R> f) {
+        return new MappedToInt<E, R>(this, (ToIntFunction) f);
+    }
+
+    /**
+     * @return a {@link LongParser} that stores the result of {@code f} unboxed
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // narrow ToLongFunction
+    })
+    default LongParser<E> mapToLong(@NonNull ToLongFunction<? super R> f) {
+        return new MappedToLong<E, R>(this, (ToLongFunction) f);
+    }
+
     default <F> Parser<F, R> mapErr(@NonNull Function<? super E, ? extends F> f) {
         return bimap(f, id());
     }
@@ -50,7 +169,7 @@ public interface Parser<E, R> {
 
     default <S> Parser<E, S> flatMap(
             @NonNull Function<? super R, ? extends Parser<? extends E, ? extends S>> f) {
-        return biFlatMap(named("error", Parser::error), f);
+        return biFlatMap(FlatMapped.propagateError(), f);
     }
 
     @SuppressWarnings({
@@ -62,18 +181,21 @@ public interface Parser<E, R> {
         return new FlatMapped<E, F, R, S>(this, (Function) f, (Function) g);
     }
 
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // narrow BiFunction
+    })
     default <B, C> Parser<E, C> then(
             @NonNull Parser<? extends E, ? extends B> p,
             @NonNull BiFunction<? super R, ? super B, ? extends C> f) {
-        return flatMap(named("then(" + p + ", " + f + ")", r -> p.map(b -> f.apply(r, b))));
+        return new Seq2<E, R, B, C>(this, narrow(p), (BiFunction) f);
     }
 
     default <B> Parser<E, B> then(@NonNull Parser<? extends E, ? extends B> p) {
-        return then(p, (a, b) -> b);
+        return new Seq2<>(this, Parser.<E, B>narrow(p), Seq2.second());
     }
 
     default <B> Parser<E, R> followedBy(@NonNull Parser<? extends E, ? extends B> p) {
-        return then(p, (a, b) -> a);
+        return new Seq2<>(this, Parser.<E, B>narrow(p), Seq2.first());
     }
 
     default Parser<Either<E, R>, R> filter(@NonNull Function<? super R, Boolean> p) {
@@ -100,7 +222,7 @@ public interface Parser<E, R> {
         return (Parser<A, B>) p;
     }
 
-    static Parser<Tuple0, Byte> anyByte() {
+    static ByteParser<Tuple0> anyByte() {
         return AnyByte.INSTANCE;
     }
 
@@ -120,10 +242,39 @@ public interface Parser<E, R> {
         return EOF.INSTANCE;
     }
 
-    static Parser<byte[], Character> character(@NonNull Charset charset) {
+    static CharParser<byte[]> character(@NonNull Charset charset) {
         return AnyCharacter.of(charset);
     }
 
+    /**
+     * A Unicode code point. Unlike {@link #character(Charset)} this also decodes supplementary characters.
+     */
+    static IntParser<byte[]> codePoint(@NonNull Charset charset) {
+        return CodePoint.of(charset);
+    }
+
+    /**
+     * A single UTF-8 encoded code point in {@code cls}, see {@link CharIn}.
+     */
+    static IntParser<Tuple0> charIn(@NonNull CharClass cls) {
+        return new CharIn(cls);
+    }
+
+    /**
+     * The bytes of the longest, possibly empty, run of UTF-8 encoded code points in {@code cls}. Scans whole chunks
+     * without decoding ASCII, see {@link CharsWhile}.
+     */
+    static Parser<Tuple0, ByteSlice> charsWhile(@NonNull CharClass cls) {
+        return new CharsWhile(cls, false);
+    }
+
+    static Parser<Tuple0, ByteSlice> charsWhile1(@NonNull CharClass cls) {
+        return new CharsWhile(cls, true);
+    }
+
+    /**
+     * A single UTF-8 character matching {@code p}. {@link #charIn(CharClass)} does not box.
+     */
     static Parser<Either<byte[], Character>, Character> matches(Function<? super Character, Boolean> p) {
         return character(UTF_8).filter(p);
     }
@@ -141,10 +292,74 @@ public interface Parser<E, R> {
         return new Expect(expected);
     }
 
+    /**
+     * The longest of {@code literals} at the head of the input, see {@link OneOf}.
+     */
+    static Parser<Integer, String> oneOf(@NonNull String... literals) {
+        String[] values = literals.clone();
+        return OneOf.of(List.of(values).map(l -> l.getBytes(UTF_8)).toJavaArray(byte[][]::new))
+                .map(named("literal", i -> values[i]));
+    }
+
+    static Parser<Integer, byte[]> oneOf(@NonNull byte[]... literals) {
+        byte[][] values = literals.clone();
+        return OneOf.of(values)
+                .map(named("literal", i -> values[i]));
+    }
+
+    /**
+     * The longest, possibly empty, run of bytes matching {@code predicate}. Scans whole chunks instead of parsing byte
+     * by byte, see {@link TakeWhile}.
+     */
+    static Parser<Tuple0, byte[]> takeWhile(@NonNull BytePredicate predicate) {
+        return new TakeWhile(predicate, false);
+    }
+
+    static Parser<Tuple0, byte[]> takeWhile1(@NonNull BytePredicate predicate) {
+        return new TakeWhile(predicate, true);
+    }
+
+    static <E> Parser<E, Tuple0> skipWhile(@NonNull BytePredicate predicate) {
+        return new SkipWhile<>(predicate);
+    }
+
+    /**
+     * A decimal {@code int} with an optional sign, read from the bytes of the input without decoding characters, see
+     * {@link IntegerLiteral}.
+     */
+    static IntParser<NumberError> decimalInt() {
+        return IntegerLiteral.DECIMAL_INT;
+    }
+
+    /**
+     * A decimal {@code long} with an optional sign, see {@link IntegerLiteral}.
+     */
+    static LongParser<NumberError> decimalLong() {
+        return IntegerLiteral.DECIMAL_LONG;
+    }
+
+    /**
+     * Up to 64 bits of unsigned hexadecimal digits without a prefix, see {@link IntegerLiteral}.
+     */
+    static LongParser<NumberError> hexLong() {
+        return IntegerLiteral.HEX_LONG;
+    }
+
+    /**
+     * A decimal floating point number, rounded like {@link Double#parseDouble(String)}, see {@link DoubleLiteral}.
+     */
+    static Parser<NumberError, Double> decimalDouble() {
+        return DoubleLiteral.INSTANCE;
+    }
+
     static <E, L, R> Parser<E, Either<L, R>> tryParse(@NonNull Parser<? extends L, ? extends R> p) {
         return new TryParse<>(narrow(p));
     }
 
+    /**
+     * Repeat {@code p} until it fails, which never fails unless {@code p} fails after a {@link #commit(Parser)}. That
+     * error of {@code p} is returned as is, so {@code X} has to be a supertype of {@code E} if {@code p} commits.
+     */
     static <X, E, R> Parser<X, List<R>> zeroOrMore(@NonNull Parser<? extends E, ? extends R> p) {
         return zeroOrMore(p, List.collector());
     }
@@ -171,7 +386,86 @@ public interface Parser<E, R> {
         return new OneOrMore<>(narrow(p), (Collector) col);
     }
 
+    /**
+     * Fold the results of {@code p} into an {@code int} like {@link #zeroOrMore(Parser)} repeats it, without boxing
+     * them, e.g. {@code foldInt(decimalInt().followedBy(expect(",")), 0, Integer::sum)}.
+     */
+    static <X, E> IntParser<X> foldInt(@NonNull IntParser<E> p, int init, @NonNull IntBinaryOperator op) {
+        return new FoldInt<>(p, init, op);
+    }
+
+    static <X, E> LongParser<X> foldLong(@NonNull LongParser<E> p, long init, @NonNull LongBinaryOperator op) {
+        return new FoldLong<>(p, init, op);
+    }
+
+    /**
+     * The bytes consumed by {@code p}, without copying them where the input allows it, see {@link Capture}. Keeps
+     * values lazy, e.g. {@code capture(takeWhile1(digit()))} is only decoded if it is read.
+     */
+    static <E> Parser<E, ByteSlice> capture(@NonNull Parser<? extends E, ?> p) {
+        return new Capture<>(Parser.<E, Object>narrow(p));
+    }
+
+    /**
+     * Packrat memoization of {@code p}, see {@link Memo}. Use the same instance wherever {@code p} may be attempted
+     * at the same position more than once, e.g. in several alternatives of {@link #or(Parser[])}.
+     */
+    static <E, R> Parser<E, R> memo(@NonNull Parser<? extends E, ? extends R> p) {
+        return memo(p, Memo.DEFAULT_CAPACITY);
+    }
+
+    static <E, R> Parser<E, R> memo(@NonNull Parser<? extends E, ? extends R> p, int capacity) {
+        return Memo.of(narrow(p), capacity);
+    }
+
+    /**
+     * Parse {@code p} and on success declare that no enclosing parser will backtrack to before its end, see
+     * {@link Input#cut()}. A stream of records parsed with {@code zeroOrMore(commit(record))} needs constant memory on
+     * a {@link StreamInput} even if an enclosing parser holds a marker. Like a Parsec parser that consumed input, a
+     * failure after the cut is not backtracked: {@link #or(Parser[])}, {@link #tryParse(Parser)} and the repetitions
+     * return the error instead of trying an alternative. {@link Input}s of other libraries that do not override
+     * {@link Input#cut()} silently backtrack.
+     */
+    static <E, R> Parser<E, R> commit(@NonNull Parser<? extends E, ? extends R> p) {
+        return new Commit<>(narrow(p));
+    }
+
+    /**
+     * {@link #commit(Parser)} at the current position.
+     */
+    static <E> Parser<E, Tuple0> cut() {
+        return commit(empty());
+    }
+
+    /**
+     * Run {@code p} with a continuation stack on the heap instead of the Java call stack, so deeply nested or long
+     * sequential grammars do not overflow the thread stack, see {@link StackSafe}.
+     */
+    static <E, R> Parser<E, R> stackSafe(@NonNull Parser<? extends E, ? extends R> p) {
+        return new StackSafe<>(narrow(p));
+    }
+
+    /**
+     * Parse all of {@code px} in order.
+     *
+     * There are no nodes for three or more heterogeneous parsers: {@code a.then(b, f).then(c, g)} nests {@link Seq2}
+     * nodes, which already create no parsers while parsing and only allocate the intermediate result of {@code f}.
+     * Use this for any number of parsers of the same result type.
+     *
+     * @return the results of {@code px} or the error of the first one that failed
+     */
     @SafeVarargs
+    @SuppressWarnings({
+            "varargs", // px is only read
+    })
+    static <E, R> Parser<E, List<R>> sequence(Parser<? extends E, ? extends R>... px) {
+        return Sequence.of(px);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings({
+            "varargs", // px is only read
+    })
     static <E, A> Parser<E, A> or(Parser<? extends E, ? extends A>... px) {
         return FirstMatch.of(px);
     }
@@ -0,0 +1,246 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.Const;
+import com.github.chisui.parsec.base.Expect;
+import com.github.chisui.parsec.base.FirstMatch;
+import com.github.chisui.parsec.base.FlatMapped;
+import com.github.chisui.parsec.base.Mapped;
+import com.github.chisui.parsec.base.Not;
+import com.github.chisui.parsec.base.Seq2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static com.github.chisui.parsec.base.Id.id;
+import static com.github.chisui.parsec.base.NamedFunction.named;
+
+/**
+ * Simplifies parser trees built with the fluent API, see {@link Rule} for the applied rewrites. The optimized parser
+ * returns the same results and errors as the original. Where a failing parser stops consuming input may change, as
+ * it already does between different {@link Input}s.
+ *
+ * Parsers are rewritten bottom up through {@link Parser#mapChildren(Rewrite)}. Shared parsers are rewritten once and
+ * parsers whose children did not change are kept as they are, so a {@link Parser#memo(Parser)} keeps its table. The
+ * continuations of {@link Parser#flatMap(Function)} are not optimized, since they are produced while parsing.
+ */
+public final class ParserOptimizer {
+    private final Map<Parser<?, ?>, Parser<?, ?>> optimized = new IdentityHashMap<>();
+    private final java.util.List<Applied> applied = new ArrayList<>();
+    private boolean changed;
+
+    private ParserOptimizer() {
+    }
+
+    public static ParserOptimizer create() {
+        return new ParserOptimizer();
+    }
+
+    public enum Rule {
+        /** {@code p.map(f).map(g)} to {@code p.map(f.andThen(g))}, dropping identity maps */
+        FUSE_MAPPED,
+        /** {@code not(not(p))} to {@code p} */
+        DOUBLE_NEGATION,
+        /** {@code or(or(a, b), c)} to {@code or(a, b, c)} */
+        FLATTEN_FIRST_MATCH,
+        /** {@code expect("ab").then(expect("c"))} to a single {@code expect("abc")} */
+        MERGE_EXPECT,
+        /** constant parsers in sequences, maps and alternatives */
+        FOLD_CONST,
+    }
+
+    /**
+     * A rule applied to a parser.
+     */
+    @Value
+    public static class Applied {
+        Rule rule;
+        String parser;
+    }
+
+    /**
+     * @return an equivalent parser
+     */
+    public <E, R> Parser<E, R> optimize(@NonNull Parser<E, R> p) {
+        return rewrite(p);
+    }
+
+    /**
+     * @return all rules applied by this optimizer so far, in the order they were applied
+     */
+    public java.util.List<Applied> applied() {
+        return applied;
+    }
+
+    /**
+     * @return how often each rule was applied
+     */
+    public String report() {
+        Map<Rule, Integer> counts = new EnumMap<>(Rule.class);
+        for (Applied a : applied) {
+            counts.merge(a.rule, 1, Integer::sum);
+        }
+        StringBuilder sb = new StringBuilder();
+        counts.forEach((rule, count) -> sb.append(String.format("%8d  %s%n", count, rule)));
+        return sb.toString();
+    }
+
+    @SuppressWarnings({
+            "unchecked", // optimized parsers have the type of their original
+    })
+    private <E, R> Parser<E, R> rewrite(Parser<E, R> p) {
+        Parser<?, ?> known = optimized.get(p);
+        if (known == null) {
+            boolean outer = changed;
+            changed = false;
+            Parser<E, R> children = rewriteChildren(p);
+            known = simplify(changed ? children : p);
+            optimized.put(p, known);
+            changed = outer;
+        }
+        changed |= known != p;
+        return (Parser<E, R>) known;
+    }
+
+    private <E, R> Parser<E, R> rewriteChildren(Parser<E, R> p) {
+        if (p instanceof FlatMapped) {
+            FlatMapped<?, E, ?, R> fm = (FlatMapped<?, E, ?, R>) p;
+            return flatMapped(fm);
+        }
+        return p.mapChildren(this::rewrite);
+    }
+
+    private <E, F, R, S> Parser<F, S> flatMapped(FlatMapped<E, F, R, S> fm) {
+        return new FlatMapped<>(rewrite(fm.p()), fm.f(), fm.g());
+    }
+
+    private Parser<?, ?> simplify(Parser<?, ?> p) {
+        while (true) {
+            Parser<?, ?> next = simplifyOnce(p);
+            if (next == p) {
+                return p;
+            }
+            p = next;
+        }
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // rules are applied to untyped nodes
+    })
+    private Parser<?, ?> simplifyOnce(Parser<?, ?> p) {
+        if (p instanceof Mapped) {
+            Mapped m = (Mapped) p;
+            if (m.p() instanceof Const) {
+                return apply(Rule.FOLD_CONST, p, ((Const) m.p()).bimap(m.g(), m.f()));
+            } else if (m.p() instanceof Mapped) {
+                Mapped inner = (Mapped) m.p();
+                return apply(Rule.FUSE_MAPPED, p,
+                        new Mapped(inner.p(), inner.f().andThen(m.f()), inner.g().andThen(m.g())));
+            } else if (m.f() == id() && m.g() == id()) {
+                return apply(Rule.FUSE_MAPPED, p, m.p());
+            }
+        } else if (p instanceof Not && ((Not) p).p() instanceof Not) {
+            return apply(Rule.DOUBLE_NEGATION, p, ((Not) ((Not) p).p()).p());
+        } else if (p instanceof FirstMatch) {
+            return firstMatch((FirstMatch) p);
+        } else if (p instanceof Seq2) {
+            return seq2((Seq2) p);
+        }
+        return p;
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // rules are applied to untyped nodes
+    })
+    private Parser<?, ?> firstMatch(FirstMatch<?, ?> fm) {
+        List<Parser<?, ?>> px = (List) fm.px();
+        if (px.exists(a -> a instanceof FirstMatch)) {
+            List<Parser<?, ?>> flat = px.flatMap(a -> a instanceof FirstMatch ? ((FirstMatch) a).px() : List.of(a));
+            return apply(Rule.FLATTEN_FIRST_MATCH, fm, FirstMatch.of(flat.toJavaArray(n -> new Parser[n])));
+        }
+        // a constant success ends the alternatives, constant errors before the last one can be skipped
+        int success = px.indexWhere(a -> a instanceof Const && ((Const) a).value().isRight());
+        List<Parser<?, ?>> tried = success >= 0 ? px.take(success + 1) : px;
+        List<Parser<?, ?>> folded = tried.init()
+                .reject(a -> a instanceof Const && ((Const) a).value().isLeft())
+                .append(tried.last());
+        if (folded.size() == px.size()) {
+            return fm;
+        }
+        return apply(Rule.FOLD_CONST, fm, folded.size() == 1
+                ? folded.head()
+                : FirstMatch.of(folded.toJavaArray(n -> new Parser[n])));
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // rules are applied to untyped nodes
+    })
+    private Parser<?, ?> seq2(Seq2<?, ?, ?, ?> seq) {
+        Parser p = seq.p();
+        Parser q = seq.q();
+        BiFunction f = seq.f();
+        if (p instanceof Const) {
+            Either value = ((Const) p).value();
+            if (value.isLeft()) {
+                return apply(Rule.FOLD_CONST, seq, p);
+            }
+            Object a = value.get();
+            return apply(Rule.FOLD_CONST, seq, q.map(named(f + "(" + a + ", _)", b -> f.apply(a, b))));
+        } else if (q instanceof Const && ((Const) q).value().isRight()) {
+            Object b = ((Const) q).value().get();
+            return apply(Rule.FOLD_CONST, seq, p.map(named(f + "(_, " + b + ")", a -> f.apply(a, b))));
+        } else if (isExpect(p) && isExpect(q)) {
+            return apply(Rule.MERGE_EXPECT, seq, mergeExpect(p, q, f));
+        }
+        return seq;
+    }
+
+    private static boolean isExpect(Parser<?, ?> p) {
+        return p instanceof Expect
+                || p instanceof Mapped && ((Mapped<?, ?, ?, ?>) p).p() instanceof Expect;
+    }
+
+    /**
+     * A single {@link Expect} that maps its result and error back to the ones of the two merged parsers.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // rules are applied to untyped nodes
+    })
+    private static Parser<?, ?> mergeExpect(Parser<?, ?> p, Parser<?, ?> q, BiFunction f) {
+        Expect a = expect(p);
+        Expect b = expect(q);
+        Function fa = p instanceof Mapped ? ((Mapped) p).f() : id();
+        Function ga = p instanceof Mapped ? ((Mapped) p).g() : id();
+        Function fb = q instanceof Mapped ? ((Mapped) q).f() : id();
+        Function gb = q instanceof Mapped ? ((Mapped) q).g() : id();
+        byte[] first = a.expected();
+        byte[] second = b.expected();
+        byte[] merged = new byte[first.length + second.length];
+        System.arraycopy(first, 0, merged, 0, first.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        return new Mapped<Integer, Object, byte[], Object>(
+                new Expect(merged),
+                named(f.toString(), bytes -> f.apply(fa.apply(first), fb.apply(second))),
+                named("split(" + first.length + ")", (Integer matched) -> matched < first.length
+                        ? ga.apply(matched)
+                        : gb.apply(matched - first.length)));
+    }
+
+    private static Expect expect(Parser<?, ?> p) {
+        return p instanceof Expect
+                ? (Expect) p
+                : (Expect) ((Mapped<?, ?, ?, ?>) p).p();
+    }
+
+    private Parser<?, ?> apply(Rule rule, Parser<?, ?> before, Parser<?, ?> after) {
+        applied.add(new Applied(rule, ParserProfiler.label(before)));
+        return after;
+    }
+}
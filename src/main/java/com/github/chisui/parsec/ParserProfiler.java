@@ -0,0 +1,333 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.FirstSet;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Aggregates per parser invocation counts, successes, failures, bytes consumed, rewinds and time.
+ *
+ * {@link #profile(Parser)} rewrites a parser tree through {@link Parser#mapChildren(Rewrite)} so that every node is
+ * wrapped by a measuring node. Unprofiled parsers are not touched, so profiling costs nothing unless it is used.
+ * Measurements are kept per call path, which {@link #collapsedStacks()} exports in the collapsed stack format read by
+ * flame graph tools, and are summed up per parser in {@link #hotSpots()}. Parsers are identified by their
+ * {@link Object#toString()}, abbreviated to {@value #MAX_LABEL_LENGTH} characters.
+ *
+ * Rewinds are counted by wrapping the {@link Input} and attributed to the parser that rewound its marker.
+ *
+ * A profiler must only be used by one parse at a time.
+ */
+public final class ParserProfiler {
+    public static final int MAX_LABEL_LENGTH = 80;
+
+    private final Frame root = new Frame("root");
+    private final Map<Parser<?, ?>, Parser<?, ?>> rewritten = new IdentityHashMap<>();
+    private boolean remember;
+    private Frame current = root;
+
+    private ParserProfiler() {
+    }
+
+    public static ParserProfiler create() {
+        return new ParserProfiler();
+    }
+
+    /**
+     * @return {@code p} measured by this profiler
+     */
+    public <E, R> Parser<E, R> profile(@NonNull Parser<E, R> p) {
+        remember = true;
+        try {
+            return new Root<>(rewrite(p));
+        } finally {
+            remember = false;
+        }
+    }
+
+    /**
+     * Parsers reached from the profiled root are rewritten once. Parsers produced while parsing, e.g. by
+     * {@link Parser#flatMap(java.util.function.Function)}, are rewritten every time they are produced, except for the
+     * already rewritten parsers they consist of, so memory stays bounded. A {@link Parser#memo(Parser)} that is only
+     * produced while parsing therefore does not remember results across productions while profiled.
+     */
+    @SuppressWarnings({
+            "unchecked", // rewritten parsers have the type of their original
+    })
+    private <E, R> Parser<E, R> rewrite(Parser<E, R> p) {
+        Parser<?, ?> known = rewritten.get(p);
+        if (known == null) {
+            known = new Profiled<>(p.mapChildren(this::rewrite), label(p));
+            if (remember) {
+                rewritten.put(p, known);
+            }
+        }
+        return (Parser<E, R>) known;
+    }
+
+    static String label(Parser<?, ?> p) {
+        String label = String.valueOf(p)
+                .replace(';', ',')
+                .replace('\n', ' ');
+        return label.length() > MAX_LABEL_LENGTH
+                ? label.substring(0, MAX_LABEL_LENGTH - 3) + "..."
+                : label;
+    }
+
+    /**
+     * Summed up measurements of one parser.
+     */
+    @Value
+    public static class NodeStats {
+        String label;
+        long invocations;
+        long successes;
+        long failures;
+        /** net bytes the parser advanced the input by */
+        long bytesConsumed;
+        /** markers rewound by the parser itself */
+        long rewinds;
+        /** bytes the rewinds of the parser moved the input back by */
+        long bytesRewound;
+        long totalNanos;
+        /** time not spent in child parsers */
+        long selfNanos;
+    }
+
+    /**
+     * @return measurements per parser, the most expensive by self time first
+     */
+    public List<NodeStats> hotSpots() {
+        Map<String, long[]> sums = new LinkedHashMap<>();
+        root.forEach(frame -> {
+            long[] sum = sums.computeIfAbsent(frame.label, l -> new long[8]);
+            sum[0] += frame.invocations;
+            sum[1] += frame.successes;
+            sum[2] += frame.invocations - frame.successes;
+            sum[3] += frame.bytesConsumed;
+            sum[4] += frame.rewinds;
+            sum[5] += frame.bytesRewound;
+            sum[6] += frame.totalNanos;
+            sum[7] += frame.selfNanos();
+        });
+        List<NodeStats> stats = new ArrayList<>();
+        sums.forEach((label, s) -> stats.add(new NodeStats(label, s[0], s[1], s[2], s[3], s[4], s[5], s[6], s[7])));
+        stats.sort(Comparator.comparingLong(NodeStats::selfNanos).reversed());
+        return stats;
+    }
+
+    /**
+     * @return a table of {@link #hotSpots()}
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder(String.format("%12s %12s %12s %12s %10s %12s %12s  %s%n",
+                "self ms", "total ms", "calls", "failures", "rewinds", "bytes", "rewound", "parser"));
+        for (NodeStats s : hotSpots()) {
+            sb.append(String.format("%12.3f %12.3f %12d %12d %10d %12d %12d  %s%n",
+                    s.selfNanos / 1e6, s.totalNanos / 1e6, s.invocations, s.failures, s.rewinds,
+                    s.bytesConsumed, s.bytesRewound, s.label));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * One line per call path of the form {@code outer;inner;innermost selfNanos}, as read by flame graph tools.
+     *
+     * @return the self time of all call paths
+     */
+    public String collapsedStacks() {
+        StringBuilder sb = new StringBuilder();
+        for (Frame child : root.children.values()) {
+            child.appendCollapsed("", sb);
+        }
+        return sb.toString();
+    }
+
+    public void reset() {
+        root.children.clear();
+        current = root;
+    }
+
+    private static final class Frame {
+        private final String label;
+        private final Map<String, Frame> children = new HashMap<>();
+        private long invocations;
+        private long successes;
+        private long bytesConsumed;
+        private long rewinds;
+        private long bytesRewound;
+        private long totalNanos;
+        private long childNanos;
+
+        private Frame(String label) {
+            this.label = label;
+        }
+
+        private Frame child(String label) {
+            return children.computeIfAbsent(label, Frame::new);
+        }
+
+        private long selfNanos() {
+            return totalNanos - childNanos;
+        }
+
+        private void forEach(Consumer<Frame> f) {
+            for (Frame child : children.values()) {
+                f.accept(child);
+                child.forEach(f);
+            }
+        }
+
+        private void appendCollapsed(String prefix, StringBuilder sb) {
+            String path = prefix + label;
+            if (selfNanos() > 0) {
+                sb.append(path).append(' ').append(selfNanos()).append('\n');
+            }
+            for (Frame child : children.values()) {
+                child.appendCollapsed(path + ";", sb);
+            }
+        }
+    }
+
+    private final class Profiled<E, R> implements ResultParser<E, R> {
+        private final Parser<E, R> p;
+        private final String label;
+        private Frame lastParent;
+        private Frame lastFrame;
+
+        private Profiled(Parser<E, R> p, String label) {
+            this.p = p;
+            this.label = label;
+        }
+
+        @Override
+        public boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+            Frame parent = current;
+            if (parent != lastParent) {
+                lastParent = parent;
+                lastFrame = parent.child(label);
+            }
+            Frame frame = lastFrame;
+            current = frame;
+            long position = in.position();
+            long start = System.nanoTime();
+            boolean success;
+            try {
+                success = p.parseInto(in, out, trace);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                current = parent;
+                frame.invocations++;
+                frame.totalNanos += elapsed;
+                frame.bytesConsumed += in.position() - position;
+                parent.childNanos += elapsed;
+            }
+            if (success) {
+                frame.successes++;
+            }
+            return success;
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return p.firstSet();
+        }
+
+        public String toString() {
+            return p.toString();
+        }
+    }
+
+    private final class Root<E, R> implements ResultParser<E, R> {
+        private final Parser<E, R> p;
+
+        private Root(Parser<E, R> p) {
+            this.p = p;
+        }
+
+        @Override
+        public boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+            return p.parseInto(new CountingInput(in), out, trace);
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return p.firstSet();
+        }
+
+        public String toString() {
+            return p.toString();
+        }
+    }
+
+    private final class CountingInput implements Input {
+        private final Input in;
+
+        private CountingInput(Input in) {
+            this.in = in;
+        }
+
+        @Override
+        public Marker mark() {
+            Marker m = in.mark();
+            long position = in.position();
+            return new Marker() {
+                @Override
+                public void rewind() throws IOException {
+                    current.rewinds++;
+                    current.bytesRewound += in.position() - position;
+                    m.rewind();
+                }
+
+                @Override
+                public boolean isCut() {
+                    return m.isCut();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    m.close();
+                }
+            };
+        }
+
+        @Override
+        public long position() {
+            return in.position();
+        }
+
+        @Override
+        public void cut() {
+            in.cut();
+        }
+
+        @Override
+        public void skip(long count) throws IOException {
+            in.skip(count);
+        }
+
+        @Override
+        public ByteSlice slice(Marker start, int length) throws IOException {
+            return in.slice(start, length);
+        }
+
+        @Override
+        public Chunk read(int size) throws IOException {
+            return in.read(size);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.chisui.parsec;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+
+import static java.lang.Math.min;
+
+/**
+ * An {@link InputStream} that reads the wrapped stream on a background thread. Up to {@code prefetchDepth} buffers
+ * are filled ahead of the consumer so I/O overlaps with parsing. Buffers are recycled, so steady state reading does
+ * not allocate.
+ *
+ * The background thread is created by the given {@link ThreadFactory}, which may create virtual threads on JDKs that
+ * support them. It terminates at the end of the stream, on the first error or when this stream is closed. Errors are
+ * rethrown to the consumer once all data read before them has been consumed.
+ *
+ * @see StreamInput#readAhead(InputStream, int)
+ */
+public final class ReadAheadInputStream extends InputStream {
+
+    private static final ThreadFactory DAEMON = r -> {
+        Thread thread = new Thread(r, "parsec-read-ahead");
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final InputStream stream;
+    private final BlockingQueue<Buffer> filled;
+    private final BlockingQueue<Buffer> free;
+    private final Thread reader;
+    private volatile boolean closed;
+    private Buffer current;
+
+    public static ReadAheadInputStream of(@NonNull InputStream stream, int bufferSize, int prefetchDepth) {
+        return of(stream, bufferSize, prefetchDepth, DAEMON);
+    }
+
+    public static ReadAheadInputStream of(
+            @NonNull InputStream stream,
+            int bufferSize,
+            int prefetchDepth,
+            @NonNull ThreadFactory threadFactory) {
+        ReadAheadInputStream in = new ReadAheadInputStream(stream,
+                requirePositive("bufferSize", bufferSize),
+                requirePositive("prefetchDepth", prefetchDepth),
+                threadFactory);
+        in.reader.start();
+        return in;
+    }
+
+    private ReadAheadInputStream(InputStream stream, int bufferSize, int prefetchDepth, ThreadFactory threadFactory) {
+        this.stream = stream;
+        this.filled = new ArrayBlockingQueue<>(prefetchDepth);
+        this.free = new ArrayBlockingQueue<>(prefetchDepth + 1);
+        for (int i = 0; i <= prefetchDepth; i++) {
+            free.add(new Buffer(bufferSize));
+        }
+        this.reader = threadFactory.newThread(this::fill);
+    }
+
+    private static final class Buffer {
+        private final byte[] bytes;
+        private int pos;
+        private int length;
+        private IOException error;
+
+        private Buffer(int size) {
+            this.bytes = new byte[size];
+        }
+
+        private boolean isEnd() {
+            return length < 0 || error != null;
+        }
+
+        private int remaining() {
+            return isEnd() ? 0 : length - pos;
+        }
+    }
+
+    private void fill() {
+        try {
+            Buffer buffer;
+            do {
+                buffer = free.take();
+                buffer.pos = 0;
+                try {
+                    buffer.length = stream.read(buffer.bytes, 0, buffer.bytes.length);
+                } catch (IOException e) {
+                    buffer.error = e;
+                } catch (RuntimeException e) {
+                    buffer.error = new IOException(e);
+                }
+                filled.put(buffer);
+            } while (!buffer.isEnd() && !closed);
+        } catch (InterruptedException e) {
+            // closed while waiting for a free or filled slot
+        }
+    }
+
+    private Buffer current() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current == null || (!current.isEnd() && current.remaining() == 0)) {
+            if (current != null) {
+                free.add(current);
+            }
+            try {
+                current = filled.take();
+            } catch (InterruptedException e) {
+                current = null;
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for read ahead");
+            }
+        }
+        if (current.error != null) {
+            throw current.error;
+        }
+        return current;
+    }
+
+    @Override
+    public int read() throws IOException {
+        Buffer buffer = current();
+        if (buffer.isEnd()) {
+            return -1;
+        }
+        return buffer.bytes[buffer.pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        Buffer buffer = current();
+        if (buffer.isEnd()) {
+            return -1;
+        }
+        int n = min(len, buffer.remaining());
+        System.arraycopy(buffer.bytes, buffer.pos, b, off, n);
+        buffer.pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        Buffer buffer = current;
+        return buffer == null ? 0 : buffer.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        reader.interrupt();
+        stream.close();
+    }
+
+    private static int requirePositive(String name, int i) {
+        if (i <= 0) {
+            throw new IllegalArgumentException("Expected " + name + " to be positive but got " + i);
+        }
+        return i;
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.chisui.parsec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Parses one record per {@link #next()} and {@link Input#cut() cuts} the input after each one, so a
+ * {@link StreamInput} only has to buffer the record being parsed.
+ */
+final class Records<E, R> implements Iterator<R> {
+    private final Parser<E, R> p;
+    private final Input in;
+    private final Result<E, R> out = new Result<>();
+    private long record;
+    private boolean failed;
+
+    Records(Parser<E, R> p, Input in) {
+        this.p = p;
+        this.in = in;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return !failed && !in.read(0).isTail();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public R next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long position = in.position();
+        try {
+            if (!p.parseInto(in, out, Parser.NO_TRACE)) {
+                failed = true;
+                throw new ParseFailure(out.getError(), position, record);
+            }
+            if (in.position() == position) {
+                failed = true;
+                throw new IllegalStateException("record parser " + p + " consumed no input at position " + position);
+            }
+            in.cut();
+        } catch (IOException e) {
+            failed = true;
+            throw new UncheckedIOException(e);
+        }
+        record++;
+        return out.get();
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.chisui.parsec;
+
+import io.vavr.control.Either;
+import lombok.NonNull;
+
+import java.util.NoSuchElementException;
+
+import static io.vavr.API.Left;
+import static io.vavr.API.Right;
+
+/**
+ * A mutable, reusable holder for the outcome of {@link Parser#parseInto(Input, Result, java.util.function.Consumer)}:
+ * either a success value or an error. A single {@link Result} is passed down through a whole parse, every parser
+ * overwriting it with its own outcome, so parsing does not allocate an {@link Either} per step.
+ *
+ * @param <E> the type of the error
+ * @param <R> the type of the success value
+ */
+public final class Result<E, R> {
+    private boolean success;
+    private Object value;
+    private long primitive;
+
+    /**
+     * Store a success value.
+     *
+     * @return {@code true}
+     */
+    public boolean succeed(R value) {
+        this.success = true;
+        this.value = value;
+        return true;
+    }
+
+    /**
+     * Store an error.
+     *
+     * @return {@code false}
+     */
+    public boolean fail(E error) {
+        this.success = false;
+        this.value = error;
+        return false;
+    }
+
+    /**
+     * Store an unboxed success value of a {@link ByteParser}, {@link CharParser}, {@link IntParser} or
+     * {@link LongParser}. It can only be read with {@link #getLong()} and its narrowing variants, {@link #get()}
+     * returns {@code null}.
+     *
+     * @return {@code true}
+     */
+    public boolean succeedLong(long value) {
+        this.success = true;
+        this.value = null;
+        this.primitive = value;
+        return true;
+    }
+
+    /**
+     * @see #succeedLong(long)
+     */
+    public boolean succeedInt(int value) {
+        return succeedLong(value);
+    }
+
+    /**
+     * @see #succeedLong(long)
+     */
+    public boolean succeedByte(byte value) {
+        return succeedLong(value);
+    }
+
+    /**
+     * @see #succeedLong(long)
+     */
+    public boolean succeedChar(char value) {
+        return succeedLong(value);
+    }
+
+    /**
+     * Store the outcome of {@code either}.
+     *
+     * @return whether it was a success
+     */
+    public boolean set(@NonNull Either<? extends E, ? extends R> either) {
+        return either.isRight()
+                ? succeed(either.get())
+                : fail(either.getLeft());
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @SuppressWarnings({
+            "unchecked", // only ever set through succeed
+    })
+    public R get() {
+        if (!success) {
+            throw new NoSuchElementException("get() on failed Result");
+        }
+        return (R) value;
+    }
+
+    /**
+     * @return the value stored by {@link #succeedLong(long)}
+     */
+    public long getLong() {
+        if (!success) {
+            throw new NoSuchElementException("getLong() on failed Result");
+        }
+        return primitive;
+    }
+
+    /**
+     * @return the value stored by {@link #succeedInt(int)}
+     */
+    public int getInt() {
+        return (int) getLong();
+    }
+
+    /**
+     * @return the value stored by {@link #succeedByte(byte)}
+     */
+    public byte getByte() {
+        return (byte) getLong();
+    }
+
+    /**
+     * @return the value stored by {@link #succeedChar(char)}
+     */
+    public char getChar() {
+        return (char) getLong();
+    }
+
+    @SuppressWarnings({
+            "unchecked", // only ever set through fail
+    })
+    public E getError() {
+        if (success) {
+            throw new NoSuchElementException("getError() on successful Result");
+        }
+        return (E) value;
+    }
+
+    public Either<E, R> toEither() {
+        return success
+                ? Right(get())
+                : Left(getError());
+    }
+
+    /**
+     * This {@link Result} with different type arguments, to pass it on to a parser of other types. The outcome that
+     * parser stores has to be read before this {@link Result} is written as its original type again.
+     */
+    @SuppressWarnings({
+            "unchecked", // the stored value is always typed by the last parser that wrote it
+    })
+    public <F, S> Result<F, S> retype() {
+        return (Result<F, S>) this;
+    }
+
+    public String toString() {
+        return (success ? "Success(" : "Failure(") + value + ")";
+    }
+}
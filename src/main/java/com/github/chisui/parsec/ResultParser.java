@@ -0,0 +1,24 @@
+package com.github.chisui.parsec;
+
+import io.vavr.control.Either;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Parser} that implements {@link #parseInto(Input, Result, Consumer)} natively and derives
+ * {@link #parse(Input, Consumer)} from it. All parsers in {@link com.github.chisui.parsec.base} are
+ * {@link ResultParser}s so a whole parse only creates an {@link Either} at the top level.
+ */
+public interface ResultParser<E, R> extends Parser<E, R> {
+
+    @Override
+    default Either<E, R> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, R> out = new Result<>();
+        parseInto(in, out, trace);
+        return out.toEither();
+    }
+
+    @Override
+    boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException;
+}
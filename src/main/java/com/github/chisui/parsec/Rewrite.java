@@ -0,0 +1,10 @@
+package com.github.chisui.parsec;
+
+/**
+ * A type preserving transformation of parsers, applied to the children of a parser by
+ * {@link Parser#mapChildren(Rewrite)}.
+ */
+@FunctionalInterface
+public interface Rewrite {
+    <E, R> Parser<E, R> apply(Parser<E, R> p);
+}
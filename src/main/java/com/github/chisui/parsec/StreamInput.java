@@ -1,30 +1,51 @@
 package com.github.chisui.parsec;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import static java.lang.Math.min;
 
-@Getter
-public class StreamInput implements Input {
+/**
+ * An {@link Input} reading from an {@link InputStream} into a single compacting buffer. The buffer has to hold every
+ * byte from the oldest live {@link Marker} to the head. Once no {@link Marker} needs the bytes at the front of the
+ * buffer anymore they are dropped the next time the buffer runs full, otherwise the buffer grows up to
+ * {@code chunkSize * maxChunkCount} bytes. Parsing an unbounded stream with short lived markers therefore does not
+ * allocate once the buffer reached its working size.
+ */
+public class StreamInput implements Input, Input.Chunk {
 
     public static final int DEFAULT_INITIAL_MARKER_CAPACITY = 8;
     public static final int DEFAULT_CHUNK_SIZE = 1024;
     public static final int DEFAULT_MAX_CHUNK_COUNT = 128;
 
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    @Getter
     private final InputStream stream;
+    @Getter
     private final int initialMarkerCapacity;
+    @Getter
     private final int chunkSize;
+    @Getter
     private final int maxChunkCount;
-    private Window window;
-    private int chunkCount;
+    private final int maxBufferSize;
+    private byte[] buffer;
+    /** absolute position of {@code buffer[0]} */
+    private long base;
+    private int start;
+    private int end;
+    private int read;
+    private boolean eof;
+    /** positions of the live markers in the order they were created */
+    private long[] markers;
+    private int markerCount;
+    /** markers before this position were invalidated by {@link #cut()} */
+    private long cut;
+    private final InputCounters metrics = new InputCounters();
 
     public static StreamInput of(@NonNull InputStream stream) {
         return new StreamInput(stream,
@@ -33,6 +54,16 @@ public class StreamInput implements Input {
                 DEFAULT_MAX_CHUNK_COUNT);
     }
 
+    /**
+     * A {@link StreamInput} that reads ahead up to {@code prefetchDepth} chunks on a background thread while the
+     * current one is parsed.
+     *
+     * @see ReadAheadInputStream
+     */
+    public static StreamInput readAhead(@NonNull InputStream stream, int prefetchDepth) {
+        return of(ReadAheadInputStream.of(stream, DEFAULT_CHUNK_SIZE, prefetchDepth));
+    }
+
     public static StreamInput of(
             @NonNull InputStream stream,
             int initialMarkerCapacity,
@@ -53,190 +84,189 @@ public class StreamInput implements Input {
         this.initialMarkerCapacity = initialMarkerCapacity;
         this.chunkSize = chunkSize;
         this.maxChunkCount = maxChunkCount;
-        this.window = new Window();
+        this.maxBufferSize = (int) min((long) chunkSize * maxChunkCount, MAX_ARRAY_SIZE);
+        this.buffer = new byte[chunkSize];
+        this.markers = new long[initialMarkerCapacity];
     }
 
-    @Getter
-    private class Window implements Input.Chunk, AutoCloseable {
-
-        private final List<Marker> markers = new ArrayList<>(initialMarkerCapacity);
-        private byte[] volatileBytes = new byte[chunkSize];
-        private int start = 0;
-        private int read = 0;
-        private int end = 0;
-        private boolean isTail;
-        private Window prev;
-        private Window next;
-
-        @Override
-        public boolean isTail() {
-            return isTail;
-        }
+    @Override
+    public byte[] volatileBytes() {
+        return buffer;
+    }
 
-        @Override
-        public byte[] volatileBytes() {
-            return volatileBytes;
-        }
+    @Override
+    public int start() {
+        return start;
+    }
 
-        @Override
-        public int start() {
-            return start;
-        }
+    @Override
+    public int end() {
+        return end;
+    }
 
-        @Override
-        public int end() {
-            return end;
-        }
+    @Override
+    public boolean isTail() {
+        return eof && end == read;
+    }
 
-        private Window read(int size) throws IOException {
-            checkReadable();
-            if (hasBufferedInput()) {
-                return readFromBuffer(size);
-            } else if (!isTail && isFull()) {
-                return readFromNextWindow(size);
-            } else {
-                return readFromStream(size);
-            }
+    @Override
+    public Chunk read(int size) throws IOException {
+        if (end == read && !eof) {
+            fill();
         }
+        start = end;
+        end = min(end + size, read);
+        return this;
+    }
 
-        private Window readFromStream(int size) throws IOException {
-            int toRead = min(volatileBytes.length - end, size);
-            int readBytes = stream.read(volatileBytes, end, toRead);
-            start = end;
-            if (readBytes >= 0) {
-                read += readBytes;
-                end = read;
-            }
-            isTail = readBytes < toRead;
-            return this;
+    /**
+     * Reads as much as fits into the buffer. A short read does not indicate the end of the stream, only a negative
+     * one does.
+     */
+    private void fill() throws IOException {
+        if (read == buffer.length) {
+            makeRoom();
         }
-
-        private Window readFromBuffer(int size) {
-            start = end;
-            end = min(end + size, read);
-            return this;
-        }
-
-        private Window readFromNextWindow(int size) throws IOException {
-            if (chunkCount >= maxChunkCount) {
-                throw new IOException("max chunk count of " + maxChunkCount + " reached");
-            }
-            if (next == null) {
-                window = new Window();
-                next = window;
-                chunkCount++;
-                if (markers.isEmpty()) {
-                    close();
-                } else {
-                    window.prev = this;
-                }
-            }
-            return next.read(size);
+        int readBytes = stream.read(buffer, read, buffer.length - read);
+        metrics.sourceRead(readBytes);
+        if (readBytes < 0) {
+            eof = true;
+        } else {
+            read += readBytes;
         }
+        metrics.buffered(read);
+    }
 
-        private boolean isFull() {
-            return end == volatileBytes.length;
+    /**
+     * Drops everything before the oldest live marker. If that would keep more than half of the buffer it grows
+     * instead, so retained bytes are not copied over and over. Once the buffer can not grow anymore it is only
+     * compacted if that frees a chunk or a quarter of the buffer, since freeing a few bytes at a time would copy the
+     * whole buffer for every few bytes read.
+     */
+    private void makeRoom() throws IOException {
+        int keepFrom = (int) (lowWaterMark() - base);
+        int retained = read - keepFrom;
+        if (retained > buffer.length / 2 && buffer.length < maxBufferSize) {
+            buffer = Arrays.copyOf(buffer, (int) min(2L * buffer.length, maxBufferSize));
+        } else if (keepFrom > 0 && keepFrom >= min(chunkSize, buffer.length / 4)) {
+            System.arraycopy(buffer, keepFrom, buffer, 0, retained);
+            base += keepFrom;
+            start -= keepFrom;
+            end -= keepFrom;
+            read = retained;
+        } else {
+            throw new IOException("max chunk count of " + maxChunkCount + " reached, "
+                    + markerCount + " live markers hold " + retained + " bytes from position " + (base + keepFrom));
         }
+    }
 
-        private boolean hasBufferedInput() {
-            return read > end;
+    private long lowWaterMark() {
+        long low = base + end;
+        for (int i = 0; i < markerCount; i++) {
+            low = min(low, markers[i]);
         }
+        return low;
+    }
 
-        private void checkReadable() throws IOException {
-            if (window != this && isClosed()) {
-                throw new IOException("Window closed");
-            }
-        }
+    @Override
+    public long position() {
+        return base + end;
+    }
 
-        public Marker mark() {
-            Marker marker = new Marker(new WeakReference<>(window), end);
-            markers.add(marker);
-            return marker;
+    /**
+     * Copies the bytes out of the buffer, since it is reused once the marker is closed.
+     */
+    @Override
+    public ByteSlice slice(Input.Marker start, int length) throws IOException {
+        if (end - length < 0) {
+            throw new IOException("Can not slice released bytes from position " + (position() - length));
         }
+        return ByteSlice.of(Arrays.copyOfRange(buffer, end - length, end));
+    }
 
-        private void rewind(int pos) throws IOException {
-            checkReadable();
-            setPos(pos);
-            window = this;
-            resetUpstream();
+    @Override
+    public Input.Marker mark() {
+        long position = position();
+        if (markerCount == markers.length) {
+            markers = Arrays.copyOf(markers, markers.length * 2);
         }
+        markers[markerCount++] = position;
+        metrics.marked();
+        return new Marker(position);
+    }
 
-        private void setPos(int pos) {
-            start = pos;
-            end = pos;
-        }
+    /**
+     * @return counters of this input, {@link InputMetrics#getBufferedBytes()} being the bytes held in the buffer
+     */
+    public InputMetrics metrics() {
+        return metrics;
+    }
 
-        private void resetUpstream() {
-            for (Window w = next; w != null; w = w.next) {
-                w.setPos(0);
+    /**
+     * Forgets all markers before the current position, so the bytes they hold are dropped the next time the buffer
+     * runs full.
+     */
+    @Override
+    public void cut() {
+        cut = position();
+        int kept = 0;
+        for (int i = 0; i < markerCount; i++) {
+            if (markers[i] >= cut) {
+                markers[kept++] = markers[i];
             }
         }
+        markerCount = kept;
+    }
 
-        private void discard(Marker marker) throws IOException {
-            if (markers.remove(marker) && prev == null) {
-                for (Window w = this; w != window && !w.markers.isEmpty(); w = w.next) {
-                    w.close();
-                }
+    private void release(long position) {
+        for (int i = markerCount - 1; i >= 0; i--) {
+            if (markers[i] == position) {
+                System.arraycopy(markers, i + 1, markers, i, markerCount - i - 1);
+                markerCount--;
+                return;
             }
         }
+    }
+
+    private class Marker implements Input.Marker {
+        private final long position;
+        private boolean closed;
 
-        private boolean isClosed() {
-            return volatileBytes == null;
+        private Marker(long position) {
+            this.position = position;
         }
 
         @Override
-        public void close() throws IOException {
-            if (prev != null && !markers.isEmpty()) {
-                throw new IOException("can only close dangling tails");
+        public void rewind() throws IOException {
+            if (position < cut) {
+                throw new IOException("Can not rewind to position " + position + " before cut at " + cut);
             }
-            if (!isClosed()) {
-                chunkCount--;
+            if (position < base) {
+                throw new IOException("Can not rewind to released position " + position);
             }
-            volatileBytes = null;
-        }
-    }
-
-    @Override
-    public Input.Marker mark() {
-        return window.mark();
-    }
-
-    private static class Marker implements Input.Marker {
-        private final WeakReference<Window> window;
-        private final int offset;
-
-        private Marker(WeakReference<Window> window, int offset) {
-            this.window = window;
-            this.offset = offset;
+            metrics.rewound(StreamInput.this.position() - position);
+            start = (int) (position - base);
+            end = start;
         }
 
         @Override
-        public void rewind() throws IOException {
-            Window w = this.window.get();
-            if (w == null) {
-                throw new IOException("Can not rewind to closed Marker");
-            }
-            w.rewind(offset);
+        public boolean isCut() {
+            return position < cut;
         }
 
         @Override
-        public void close() throws IOException {
-            Window w = this.window.get();
-            if (w != null) {
-                w.discard(this);
+        public void close() {
+            if (!closed) {
+                closed = true;
+                metrics.closed();
+                release(position);
             }
         }
-
-    }
-    @Override
-    public Chunk read(int size) throws IOException {
-        return window.read(size);
     }
 
     @Override
     public void close() throws IOException {
         stream.close();
-        window.close();
     }
 
     private static int requirePositive(String name, int i) {
@@ -0,0 +1,30 @@
+package com.github.chisui.parsec;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * A {@link Collector} whose accumulator can take the results of {@link ByteParser}s, {@link CharParser}s or
+ * {@link IntParser}s without boxing them. {@link Parser#zeroOrMore(Parser, Collector)} and
+ * {@link Parser#oneOrMore(Parser, Collector)} let it parse each element itself. Used as a plain {@link Collector}
+ * the elements are boxed as usual.
+ *
+ * @see Bytes
+ * @see Chars
+ */
+public interface UnboxedCollector<T, A, S> extends Collector<T, A, S> {
+
+    /**
+     * Parse {@code p} once and on success add its result to {@code acc}, unboxed if {@code p} supports it.
+     *
+     * @param res the result to parse into, holding the error of {@code p} on failure
+     * @return whether {@code p} succeeded
+     */
+    <E> boolean accumulate(
+            Parser<E, T> p,
+            Input in,
+            Result<E, ?> res,
+            A acc,
+            Consumer<? super Parser<?, ?>> trace) throws IOException;
+}
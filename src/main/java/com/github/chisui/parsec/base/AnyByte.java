@@ -1,9 +1,10 @@
 package com.github.chisui.parsec.base;
 
+import com.github.chisui.parsec.ByteParser;
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
 import io.vavr.Tuple0;
-import io.vavr.control.Either;
 import lombok.ToString;
 
 import java.io.IOException;
@@ -12,17 +13,22 @@ import java.util.function.Consumer;
 import static io.vavr.API.*;
 
 @ToString
-public enum AnyByte implements Parser<Tuple0, Byte> {
+public enum AnyByte implements ByteParser<Tuple0> {
     INSTANCE;
 
     @Override
-    public Either<Tuple0, Byte> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
+    public boolean parseByte(Input in, Result<Tuple0, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
         Input.Chunk read = in.read(1);
         if (read.size() != 1) {
-            return Left(Tuple());
+            return out.fail(Tuple());
         } else {
-            return Right(read.volatileBytes()[read.start()]);
+            return out.succeedByte(read.byteAt(0));
         }
     }
+
+    @Override
+    public FirstSet firstSet() {
+        return FirstSet.BYTES;
+    }
 }
@@ -1,58 +1,66 @@
 package com.github.chisui.parsec.base;
 
+import com.github.chisui.parsec.CharParser;
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.ToString;
 import lombok.Value;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
 import java.nio.charset.Charset;
-import java.nio.charset.CharsetDecoder;
-import java.nio.charset.CoderResult;
 import java.util.function.Consumer;
 
-import static io.vavr.API.Left;
-import static io.vavr.API.Right;
+import static lombok.AccessLevel.NONE;
 
+/**
+ * A single {@code char}. Code points outside the basic multilingual plane do not fit into one and are an error
+ * carrying their bytes, use {@link CodePoint} for them.
+ *
+ * @see CodePointReader
+ */
 @Value
-public class AnyCharacter implements Parser<byte[], java.lang.Character> {
+public class AnyCharacter implements CharParser<byte[]> {
     @NonNull Charset charset;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    CodePointReader reader;
 
-    public static Parser<byte[], java.lang.Character> of(Charset charset) {
+    private AnyCharacter(Charset charset) {
+        this.charset = charset;
+        this.reader = CodePointReader.of(charset);
+    }
+
+    public static CharParser<byte[]> of(@NonNull Charset charset) {
         return new AnyCharacter(charset);
     }
 
     @Override
-    public Either<byte[], java.lang.Character> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
-        CharsetDecoder decoder = charset.newDecoder();
-        ByteBuffer buf = ByteBuffer.allocate(8);
-        CharBuffer out = CharBuffer.allocate(8);
-        CoderResult res;
-        int pos = 0;
-        do {
-            buf.position(pos++);
-            buf.limit(buf.capacity());
-            Input.Chunk read = in.read(1);
-            if (read.size() < 1) {
-                return Left(buf.array());
-            }
-            buf.put(read.volatileBytes()[read.start()]);
-            buf.position(0);
-            buf.limit(pos);
-            res = decoder.decode(buf, out, true);
-        } while (out.position() < 1);
-        if (res.isError()) {
-            return Left(buf.array());
+    public boolean parseChar(
+            Input in,
+            Result<byte[], ?> out,
+            Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        long res = reader.read(in);
+        if (CodePointReader.isError(res)) {
+            return out.fail(CodePointReader.errorBytes(res));
+        } else if (res > Character.MAX_VALUE) {
+            return out.fail(new String(Character.toChars((int) res)).getBytes(charset));
         } else {
-            out.position(0);
-            return Right(out.charAt(0));
+            return out.succeedChar((char) res);
         }
     }
 
+    /**
+     * For UTF-8 only valid lead bytes, for US-ASCII only ASCII bytes, any byte otherwise.
+     */
+    @Override
+    public FirstSet firstSet() {
+        return reader.firstSet();
+    }
+
     public String toString() {
         return "anyChar(" + charset + ")";
     }
@@ -0,0 +1,46 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.ByteParser;
+import com.github.chisui.parsec.BytePredicate;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import io.vavr.control.Either;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static io.vavr.API.*;
+
+@Value
+public class ByteFiltered<E> implements ByteParser<Either<E, Byte>> {
+    @NonNull ByteParser<E> p;
+    @NonNull BytePredicate predicate;
+
+    @Override
+    public boolean parseByte(Input in, Result<Either<E, Byte>, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, ?> res = out.retype();
+        if (!p.parseByte(in, res, trace)) {
+            return out.fail(Left(res.getError()));
+        }
+        byte value = res.getByte();
+        return predicate.test(value) || out.fail(Right(value));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<Either<E, Byte>, Byte> mapChildren(@NonNull Rewrite f) {
+        return new ByteFiltered<>(ByteParser.of(f.apply(p)), predicate);
+    }
+
+    public String toString() {
+        return p + ".filterByte(" + predicate + ")";
+    }
+}
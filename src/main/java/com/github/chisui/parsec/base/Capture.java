@@ -0,0 +1,52 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.ByteSlice;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * The bytes {@link #p()} consumed instead of its result, see {@link Input#slice(Input.Marker, int)}. The marker held
+ * while {@link #p()} runs keeps streaming inputs from releasing the bytes, unless {@link #p()} cuts the input.
+ */
+@Value
+public class Capture<E, R> implements ResultParser<E, ByteSlice> {
+    @NonNull Parser<E, R> p;
+
+    @Override
+    public boolean parseInto(Input in, Result<E, ByteSlice> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        try (Input.Marker start = in.mark()) {
+            long position = in.position();
+            if (!p.parseInto(in, out.retype(), trace)) {
+                return false;
+            }
+            long length = in.position() - position;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("can not capture " + length + " bytes from position " + position);
+            }
+            return out.succeed(in.slice(start, (int) length));
+        }
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, ByteSlice> mapChildren(@NonNull Rewrite f) {
+        return new Capture<>(f.apply(p));
+    }
+
+    public String toString() {
+        return "capture(" + p + ")";
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.CharClass;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import io.vavr.Tuple0;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static io.vavr.API.*;
+
+/**
+ * A single UTF-8 encoded code point in {@link #cls()}. On failure no input is consumed.
+ *
+ * @see CharsWhile
+ */
+@Value
+public class CharIn implements IntParser<Tuple0> {
+    @NonNull CharClass cls;
+
+    @Override
+    public boolean parseInt(Input in, Result<Tuple0, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        try (Input.Marker m = in.mark()) {
+            long res = CodePointReader.Utf8.INSTANCE.read(in);
+            if (CodePointReader.isError(res) || !cls.contains((int) res)) {
+                m.rewind();
+                return out.fail(Tuple());
+            }
+            return out.succeedInt((int) res);
+        }
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return CharsWhile.leadBytes(cls);
+    }
+
+    public String toString() {
+        return "charIn(" + cls + ")";
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.ByteSlice;
+import com.github.chisui.parsec.CharClass;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import io.vavr.Tuple0;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static io.vavr.API.*;
+
+/**
+ * The longest run of UTF-8 encoded code points in {@link #cls()}, as the bytes they are encoded in. Like
+ * {@link TakeWhile} whole {@link Input.Chunk}s are scanned at a time, ASCII bytes are looked up without decoding them
+ * and the result is a slice of the input, see {@link Input#slice(Input.Marker, int)}. Malformed sequences end the
+ * run. If {@code nonEmpty} is set, an empty run is an error.
+ */
+@Value
+public class CharsWhile implements ResultParser<Tuple0, ByteSlice> {
+    @NonNull CharClass cls;
+    boolean nonEmpty;
+
+    @Override
+    public boolean parseInto(Input in, Result<Tuple0, ByteSlice> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        try (Input.Marker start = in.mark()) {
+            long length = 0;
+            while (true) {
+                try (Input.Marker m = in.mark()) {
+                    Input.Chunk read = in.read(TakeWhile.READ_SIZE);
+                    int size = read.size();
+                    if (size == 0) {
+                        if (read.isTail()) {
+                            break;
+                        }
+                        continue;
+                    }
+                    int n = span(cls, read);
+                    length += n;
+                    if (n == size) {
+                        continue;
+                    }
+                    boolean truncated = sequenceLength(read.byteAt(n)) > size - n;
+                    m.rewind();
+                    in.skip(n);
+                    if (!truncated) {
+                        break;
+                    }
+                }
+                // the chunk ended within a sequence, decode it across chunks
+                try (Input.Marker m = in.mark()) {
+                    long res = CodePointReader.Utf8.INSTANCE.read(in);
+                    if (CodePointReader.isError(res) || !cls.contains((int) res)) {
+                        m.rewind();
+                        break;
+                    }
+                    length += utf8Length((int) res);
+                }
+            }
+            if (length == 0 && nonEmpty) {
+                return out.fail(Tuple());
+            }
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("can not slice a run of " + length + " bytes");
+            }
+            return out.succeed(in.slice(start, (int) length));
+        }
+    }
+
+    /**
+     * @return the number of leading bytes of {@code read} that encode complete code points in {@code cls}
+     */
+    static int span(CharClass cls, Input.Chunk read) {
+        int size = read.size();
+        int i = 0;
+        if (read.hasArray()) {
+            byte[] bytes = read.volatileBytes();
+            int offset = read.start();
+            while (i < size) {
+                byte b = bytes[offset + i];
+                if (b >= 0) {
+                    if (!cls.contains(b)) {
+                        return i;
+                    }
+                    i++;
+                } else {
+                    int n = decode(cls, read, i);
+                    if (n == 0) {
+                        return i;
+                    }
+                    i += n;
+                }
+            }
+            return i;
+        }
+        ByteBuffer buffer = read.buffer();
+        int offset = buffer.position();
+        while (i < size) {
+            byte b = buffer.get(offset + i);
+            if (b >= 0) {
+                if (!cls.contains(b)) {
+                    return i;
+                }
+                i++;
+            } else {
+                int n = decode(cls, read, i);
+                if (n == 0) {
+                    return i;
+                }
+                i += n;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @return the length of the multi byte sequence at {@code i} if it is complete, well formed and encodes a code
+     * point in {@code cls}, otherwise 0
+     */
+    private static int decode(CharClass cls, Input.Chunk read, int i) {
+        int lead = read.byteAt(i) & 0xff;
+        int length = sequenceLength((byte) lead);
+        if (length == 0 || i + length > read.size()) {
+            return 0;
+        }
+        int cp = lead & (0xff >>> length + 1);
+        for (int j = 1; j < length; j++) {
+            int b = read.byteAt(i + j) & 0xff;
+            if ((b & 0xc0) != 0x80) {
+                return 0;
+            }
+            cp = cp << 6 | b & 0x3f;
+        }
+        if (length == 3 && (cp < 0x800 || cp >= 0xd800 && cp <= 0xdfff)
+                || length == 4 && (cp < 0x10000 || cp > 0x10ffff)) {
+            return 0;
+        }
+        return cls.contains(cp) ? length : 0;
+    }
+
+    /**
+     * @return the length of the sequence started by {@code lead}, 1 for ASCII and 0 if it can not start one
+     */
+    static int sequenceLength(byte lead) {
+        int b = lead & 0xff;
+        if (b < 0x80) {
+            return 1;
+        } else if (b >= 0xc2 && b <= 0xdf) {
+            return 2;
+        } else if (b >= 0xe0 && b <= 0xef) {
+            return 3;
+        } else if (b >= 0xf0 && b <= 0xf4) {
+            return 4;
+        }
+        return 0;
+    }
+
+    private static int utf8Length(int codePoint) {
+        return codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * @return the bytes that can start the encoding of a code point in {@code cls}
+     */
+    static FirstSet leadBytes(CharClass cls) {
+        boolean[] table = new boolean[256];
+        for (int b = 0; b < 256; b++) {
+            int length = sequenceLength((byte) b);
+            if (length == 1) {
+                table[b] = cls.contains(b);
+            } else if (length > 1) {
+                int bits = 6 * (length - 1);
+                int from = (b & (0xff >>> length + 1)) << bits;
+                table[b] = cls.containsAny(from, from + (1 << bits) - 1);
+            }
+        }
+        return FirstSet.matching(table);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return nonEmpty
+                ? leadBytes(cls)
+                : FirstSet.ALL;
+    }
+
+    public String toString() {
+        return (nonEmpty ? "charsWhile1(" : "charsWhile(") + cls + ")";
+    }
+}
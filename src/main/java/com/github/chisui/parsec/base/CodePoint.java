@@ -0,0 +1,56 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
+
+import static lombok.AccessLevel.NONE;
+
+/**
+ * A single Unicode code point, including supplementary ones. The error holds the bytes that could not be decoded.
+ *
+ * @see CodePointReader
+ */
+@Value
+public class CodePoint implements IntParser<byte[]> {
+    @NonNull Charset charset;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    CodePointReader reader;
+
+    private CodePoint(Charset charset) {
+        this.charset = charset;
+        this.reader = CodePointReader.of(charset);
+    }
+
+    public static IntParser<byte[]> of(@NonNull Charset charset) {
+        return new CodePoint(charset);
+    }
+
+    @Override
+    public boolean parseInt(Input in, Result<byte[], ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        long res = reader.read(in);
+        return CodePointReader.isError(res)
+                ? out.fail(CodePointReader.errorBytes(res))
+                : out.succeedInt((int) res);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return reader.firstSet();
+    }
+
+    public String toString() {
+        return "codePoint(" + charset + ")";
+    }
+}
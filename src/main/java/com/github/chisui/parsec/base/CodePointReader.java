@@ -0,0 +1,231 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads a single code point from an {@link Input}. UTF-8, US-ASCII and ISO-8859-1 are decoded directly from the read
+ * {@link Input.Chunk}s, other charsets use a {@link CharsetDecoder} that is reused per thread.
+ *
+ * To not allocate on success the result is a {@code long}: either the code point or, if {@link #isError(long)}, up
+ * to {@link #MAX_SEQUENCE} consumed bytes that could not be decoded, see {@link #errorBytes(long)}.
+ */
+interface CodePointReader {
+    int MAX_SEQUENCE = 6;
+    long ERROR = Long.MIN_VALUE;
+
+    long read(Input in) throws IOException;
+
+    FirstSet firstSet();
+
+    static CodePointReader of(Charset charset) {
+        if (UTF_8.equals(charset)) {
+            return Utf8.INSTANCE;
+        } else if (US_ASCII.equals(charset)) {
+            return Ascii.INSTANCE;
+        } else if (ISO_8859_1.equals(charset)) {
+            return Latin1.INSTANCE;
+        } else {
+            return new Decoding(charset);
+        }
+    }
+
+    static boolean isError(long res) {
+        return res < 0;
+    }
+
+    /**
+     * @param bytes the consumed bytes in order, the first one in the most significant position
+     * @param count number of consumed bytes
+     * @return an error result
+     */
+    static long error(long bytes, int count) {
+        return ERROR | (long) count << 48 | bytes & 0xffff_ffff_ffffL;
+    }
+
+    static byte[] errorBytes(long res) {
+        int count = (int) (res >>> 48) & 0xff;
+        byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = (byte) (res >>> 8 * (count - 1 - i));
+        }
+        return bytes;
+    }
+
+    enum Ascii implements CodePointReader {
+        INSTANCE;
+
+        @Override
+        public long read(Input in) throws IOException {
+            Input.Chunk read = in.read(1);
+            if (read.size() < 1) {
+                return error(0, 0);
+            }
+            byte b = read.byteAt(0);
+            return b >= 0 ? b : error(b, 1);
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return FirstSet.range(0x00, 0x7f);
+        }
+    }
+
+    enum Latin1 implements CodePointReader {
+        INSTANCE;
+
+        @Override
+        public long read(Input in) throws IOException {
+            Input.Chunk read = in.read(1);
+            return read.size() < 1
+                    ? error(0, 0)
+                    : read.byteAt(0) & 0xff;
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return FirstSet.BYTES;
+        }
+    }
+
+    /**
+     * Rejects overlong encodings, surrogates and code points above {@code U+10FFFF} like the JDK decoder does.
+     */
+    enum Utf8 implements CodePointReader {
+        INSTANCE;
+
+        private static final FirstSet LEAD_BYTES = FirstSet.range(0x00, 0x7f).union(FirstSet.range(0xc2, 0xf4));
+
+        @Override
+        public long read(Input in) throws IOException {
+            Input.Chunk read = in.read(1);
+            if (read.size() < 1) {
+                return error(0, 0);
+            }
+            int lead = read.byteAt(0) & 0xff;
+            if (lead < 0x80) {
+                return lead;
+            }
+            int length;
+            int cp;
+            if (lead >= 0xc2 && lead <= 0xdf) {
+                length = 2;
+                cp = lead & 0x1f;
+            } else if (lead >= 0xe0 && lead <= 0xef) {
+                length = 3;
+                cp = lead & 0x0f;
+            } else if (lead >= 0xf0 && lead <= 0xf4) {
+                length = 4;
+                cp = lead & 0x07;
+            } else {
+                return error(lead, 1);
+            }
+            long seq = lead;
+            int count = 1;
+            while (count < length) {
+                read = in.read(length - count);
+                int size = read.size();
+                if (size == 0) {
+                    if (read.isTail()) {
+                        return error(seq, count);
+                    }
+                    continue;
+                }
+                for (int i = 0; i < size; i++) {
+                    int b = read.byteAt(i) & 0xff;
+                    seq = seq << 8 | b;
+                    count++;
+                    if ((b & 0xc0) != 0x80) {
+                        return error(seq, count);
+                    }
+                    cp = cp << 6 | b & 0x3f;
+                }
+            }
+            if (length == 3 && (cp < 0x800 || cp >= 0xd800 && cp <= 0xdfff)
+                    || length == 4 && (cp < 0x10000 || cp > 0x10ffff)) {
+                return error(seq, count);
+            }
+            return cp;
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return LEAD_BYTES;
+        }
+    }
+
+    /**
+     * Feeds a reused {@link CharsetDecoder} byte by byte until it produced a character or failed.
+     */
+    final class Decoding implements CodePointReader {
+        private final ThreadLocal<State> state;
+
+        private Decoding(Charset charset) {
+            this.state = ThreadLocal.withInitial(() -> new State(charset));
+        }
+
+        private static final class State {
+            private final CharsetDecoder decoder;
+            private final ByteBuffer bytes = ByteBuffer.allocate(MAX_SEQUENCE);
+            private final CharBuffer chars = CharBuffer.allocate(2);
+
+            private State(Charset charset) {
+                this.decoder = charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPORT)
+                        .onUnmappableCharacter(CodingErrorAction.REPORT);
+            }
+        }
+
+        @Override
+        public long read(Input in) throws IOException {
+            State s = state.get();
+            s.decoder.reset();
+            s.bytes.clear();
+            s.chars.clear();
+            long seq = 0;
+            int count = 0;
+            while (count < MAX_SEQUENCE) {
+                Input.Chunk read = in.read(1);
+                if (read.size() < 1) {
+                    if (read.isTail()) {
+                        return error(seq, count);
+                    }
+                    continue;
+                }
+                byte b = read.byteAt(0);
+                seq = seq << 8 | b & 0xff;
+                count++;
+                s.bytes.put(b);
+                s.bytes.flip();
+                CoderResult res = s.decoder.decode(s.bytes, s.chars, false);
+                s.bytes.compact();
+                if (res.isError()) {
+                    return error(seq, count);
+                }
+                int decoded = s.chars.position();
+                if (decoded == 2 || decoded == 1 && !Character.isHighSurrogate(s.chars.get(0))) {
+                    return decoded == 1
+                            ? s.chars.get(0)
+                            : Character.toCodePoint(s.chars.get(0), s.chars.get(1));
+                }
+            }
+            return error(seq, count);
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return FirstSet.BYTES;
+        }
+    }
+}
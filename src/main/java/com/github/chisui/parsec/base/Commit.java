@@ -0,0 +1,46 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Parses {@link #p()} and, if it succeeds, {@link Input#cut() cuts} the input: no enclosing parser may backtrack to
+ * before the end of {@link #p()} anymore, which lets streaming inputs release what they buffered for it. Rewinding
+ * behind the cut fails with an {@link java.io.IOException}.
+ */
+@Value
+public class Commit<E, R> implements ResultParser<E, R> {
+    @NonNull Parser<E, R> p;
+
+    @Override
+    public boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        if (p.parseInto(in, out, trace)) {
+            in.cut();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, R> mapChildren(@NonNull Rewrite f) {
+        return new Commit<>(f.apply(p));
+    }
+
+    public String toString() {
+        return "commit(" + p + ")";
+    }
+}
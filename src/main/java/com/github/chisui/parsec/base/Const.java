@@ -2,6 +2,8 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
 import io.vavr.control.Either;
 import lombok.NonNull;
 import lombok.Value;
@@ -17,15 +19,28 @@ import static io.vavr.API.Right;
 @SuppressWarnings({
         "unchecked", // it's a success
 })
-public class Const<E, R> implements Parser<E, R> {
+public class Const<E, R> implements ResultParser<E, R> {
     @NonNull Either<E, R> value;
 
     @Override
     public Either<E, R> parse(@NonNull Input in, Consumer<? super Parser<?, ?>> trace) {
-        trace.accept(this);
+        Parser.traced(trace, this);
         return value;
     }
 
+    @Override
+    public boolean parseInto(@NonNull Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) {
+        Parser.traced(trace, this);
+        return out.set(value);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return value.isRight()
+                ? FirstSet.ALL
+                : FirstSet.NONE;
+    }
+
     @Override
     public <S> Parser<E, S> map(@NonNull Function<? super R, ? extends S> f) {
         if (value.isLeft()) {
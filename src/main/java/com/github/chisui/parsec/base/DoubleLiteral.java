@@ -0,0 +1,149 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.NumberError;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+/**
+ * A decimal floating point number of the form {@code [+-]digits[.digits][(e|E)[+-]digits]}, rounded to the nearest
+ * double exactly like {@link Double#parseDouble(String)} does. A {@code .} or exponent that is not followed by a
+ * digit is not part of the number. On failure no input is consumed.
+ *
+ * The significant digits are accumulated straight from the read {@link Input.Chunk}s. If they fit into 53 bits and
+ * the decimal exponent is at most 22 the result is exact after a single multiplication or division, otherwise the
+ * number is read again and handed to {@link Double#parseDouble(String)}.
+ */
+@ToString
+public enum DoubleLiteral implements ResultParser<NumberError, Double> {
+    INSTANCE;
+
+    static final int READ_SIZE = 64;
+
+    /** the most decimal digits that always fit into a {@code long} */
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final int MAX_EXPONENT = 100_000;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    private static final int START = 0;
+    private static final int SIGN = 1;
+    private static final int INTEGER = 2;
+    private static final int DOT = 3;
+    private static final int FRACTION = 4;
+    private static final int E = 5;
+    private static final int EXPONENT_SIGN = 6;
+    private static final int EXPONENT = 7;
+
+    @Override
+    public boolean parseInto(Input in, Result<NumberError, Double> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        try (Input.Marker start = in.mark()) {
+            int state = START;
+            int count = 0;
+            int accepted = 0;
+            boolean negative = false;
+            long mantissa = 0;
+            int mantissaDigits = 0;
+            boolean truncated = false;
+            int scale = 0;
+            int exponent = 0;
+            boolean negativeExponent = false;
+            scan:
+            while (true) {
+                Input.Chunk read = in.read(READ_SIZE);
+                int size = read.size();
+                if (size == 0) {
+                    if (read.isTail()) {
+                        break;
+                    }
+                    continue;
+                }
+                byte[] bytes = read.hasArray() ? read.volatileBytes() : null;
+                ByteBuffer buffer = bytes == null ? read.buffer() : null;
+                int offset = bytes == null ? buffer.position() : read.start();
+                for (int i = 0; i < size; i++) {
+                    int b = (bytes != null ? bytes[offset + i] : buffer.get(offset + i)) & 0xff;
+                    int d = b - '0';
+                    boolean digit = d >= 0 && d <= 9;
+                    if (digit && state <= FRACTION) {
+                        if (mantissa == 0 && d == 0) {
+                            // leading zeros are not significant
+                        } else if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                            mantissa = mantissa * 10 + d;
+                            mantissaDigits++;
+                        } else {
+                            truncated |= d != 0;
+                            scale++;
+                        }
+                        if (state >= DOT) {
+                            scale--;
+                            state = FRACTION;
+                        } else {
+                            state = INTEGER;
+                        }
+                    } else if (digit) {
+                        exponent = Math.min(exponent * 10 + d, MAX_EXPONENT);
+                        state = EXPONENT;
+                    } else if (state == START && (b == '-' || b == '+')) {
+                        negative = b == '-';
+                        state = SIGN;
+                    } else if (state == INTEGER && b == '.') {
+                        state = DOT;
+                    } else if ((state == INTEGER || state == FRACTION) && (b == 'e' || b == 'E')) {
+                        state = E;
+                    } else if (state == E && (b == '-' || b == '+')) {
+                        negativeExponent = b == '-';
+                        state = EXPONENT_SIGN;
+                    } else {
+                        break scan;
+                    }
+                    count++;
+                    if (state == INTEGER || state == FRACTION || state == EXPONENT) {
+                        accepted = count;
+                    }
+                }
+            }
+            start.rewind();
+            if (accepted == 0) {
+                return out.fail(NumberError.NO_DIGITS);
+            }
+            int power = scale + (state == EXPONENT ? negativeExponent ? -exponent : exponent : 0);
+            if (!truncated && mantissa < 1L << 53 && Math.abs(power) < POWERS_OF_TEN.length) {
+                double value = power >= 0
+                        ? (double) mantissa * POWERS_OF_TEN[power]
+                        : (double) mantissa / POWERS_OF_TEN[-power];
+                in.skip(accepted);
+                return out.succeed(negative ? -value : value);
+            }
+            return out.succeed(Double.parseDouble(readAscii(in, accepted)));
+        }
+    }
+
+    private static String readAscii(Input in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int pos = 0;
+        while (pos < length) {
+            Input.Chunk read = in.read(length - pos);
+            byte[] copy = read.copy();
+            System.arraycopy(copy, 0, bytes, pos, copy.length);
+            pos += copy.length;
+        }
+        return new String(bytes, ISO_8859_1);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return FirstSet.range('0', '9').union(FirstSet.of((byte) '-', (byte) '+'));
+    }
+}
@@ -2,8 +2,9 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
 import io.vavr.Tuple0;
-import io.vavr.control.Either;
 import lombok.ToString;
 
 import java.io.IOException;
@@ -12,14 +13,19 @@ import java.util.function.Consumer;
 import static io.vavr.API.*;
 
 @ToString
-public enum EOF implements Parser<Tuple0, Tuple0> {
+public enum EOF implements ResultParser<Tuple0, Tuple0> {
     INSTANCE;
 
     @Override
-    public Either<Tuple0, Tuple0> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
+    public boolean parseInto(Input in, Result<Tuple0, Tuple0> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
         return in.read(0).isTail()
-                ? Right(Tuple())
-                : Left(Tuple());
+                ? out.succeed(Tuple())
+                : out.fail(Tuple());
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return FirstSet.END;
     }
 }
@@ -2,36 +2,71 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
 import lombok.NonNull;
 import lombok.Value;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-import static io.vavr.API.Left;
-import static io.vavr.API.Right;
-
 @Value
-public class Expect implements Parser<Integer, byte[]>  {
+public class Expect implements ResultParser<Integer, byte[]>  {
     @NonNull byte[] expected;
 
     @Override
-    public Either<Integer, byte[]> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
+    public boolean parseInto(Input in, Result<Integer, byte[]> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
         int pos = 0;
         Input.Chunk read;
         do {
             read = in.read(expected.length - pos);
-            byte[] bytes = read.volatileBytes();
             int size = read.size();
-            for (int i = 0; i < size; i++) {
-                if (expected[pos + i] != bytes[read.start() + i]) {
-                    return Left(i);
-                }
+            int mismatch = matching(read, pos);
+            if (mismatch < size) {
+                return out.fail(pos + mismatch);
             }
             pos += size;
+            if (size == 0 && read.isTail() && pos < expected.length) {
+                return out.fail(pos);
+            }
         } while (pos < expected.length);
-        return Right(expected);
+        return out.succeed(expected);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return expected.length == 0
+                ? FirstSet.ALL
+                : FirstSet.of(expected[0]);
+    }
+
+    /**
+     * @return the number of bytes of {@code read} that match the expected bytes from {@code pos} on
+     */
+    int matching(Input.Chunk read, int pos) {
+        return read.hasArray()
+                ? mismatch(read.volatileBytes(), read.start(), pos, read.size())
+                : mismatch(read.buffer(), pos, read.size());
+    }
+
+    private int mismatch(byte[] bytes, int start, int pos, int size) {
+        for (int i = 0; i < size; i++) {
+            if (expected[pos + i] != bytes[start + i]) {
+                return i;
+            }
+        }
+        return size;
+    }
+
+    private int mismatch(ByteBuffer bytes, int pos, int size) {
+        int start = bytes.position();
+        for (int i = 0; i < size; i++) {
+            if (expected[pos + i] != bytes.get(start + i)) {
+                return i;
+            }
+        }
+        return size;
     }
 }
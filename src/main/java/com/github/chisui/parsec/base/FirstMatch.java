@@ -2,50 +2,145 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
 import io.vavr.collection.List;
-import io.vavr.control.Either;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import lombok.ToString;
 import lombok.Value;
 
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.Consumer;
 
-import static lombok.AccessLevel.PRIVATE;
+import static lombok.AccessLevel.NONE;
 
+/**
+ * Tries every alternative in order and returns the first success, or the error of the last alternative.
+ *
+ * If the {@link FirstSet}s of the alternatives rule out some of them for some lookaheads, the next byte is peeked
+ * once and only the alternatives that may succeed on it are tried. The last alternative is always tried so the
+ * returned error stays the same.
+ *
+ * An alternative that fails after a {@link Parser#commit(Parser) commit} fails the whole choice with its error, the
+ * remaining alternatives are not tried.
+ */
 @Value
-@RequiredArgsConstructor(access = PRIVATE)
-public class FirstMatch<E, A> implements Parser<E, A> {
+public class FirstMatch<E, A> implements ResultParser<E, A> {
+    private static final int END = 256;
+
     @NonNull List<Parser<E, A>> px;
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Parser<E, A>[] all;
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Parser<E, A>[][] dispatch;
 
+    @SafeVarargs
     @SuppressWarnings({
-            "unchecked", "rawtypes", // list of parsers
+            "unchecked", "rawtypes", "varargs", // list of parsers
     })
-    public static <E, A> Parser<E, A>of(Parser<? extends E, ? extends A>... px) {
+    public static <E, A> Parser<E, A> of(Parser<? extends E, ? extends A>... px) {
         if (px.length < 1) {
             throw new IllegalArgumentException("need at least one parser");
         }
         return new FirstMatch<>((List) List.of(px));
     }
 
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // generic array
+    })
+    private FirstMatch(List<Parser<E, A>> px) {
+        this.px = px;
+        this.all = px.toJavaArray(n -> new Parser[n]);
+        this.dispatch = dispatchTable(px);
+    }
+
+    /**
+     * For every lookahead byte and the end of input the alternatives that may succeed, or null if no alternative can
+     * be ruled out for any lookahead.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // generic array
+    })
+    private static <E, A> Parser<E, A>[][] dispatchTable(List<Parser<E, A>> px) {
+        List<FirstSet> sets = px.map(Parser::firstSet);
+        if (sets.init().forAll(FirstSet::isAll)) {
+            return null;
+        }
+        Parser<E, A>[][] table = new Parser[END + 1][];
+        Map<List<Parser<E, A>>, Parser<E, A>[]> shared = new HashMap<>();
+        for (int la = 0; la <= END; la++) {
+            byte b = (byte) la;
+            boolean end = la == END;
+            List<Parser<E, A>> candidates = px.zip(sets)
+                    .filter(t -> end ? t._2.containsEnd() : t._2.contains(b))
+                    .map(t -> t._1);
+            if (candidates.isEmpty() || candidates.last() != px.last()) {
+                candidates = candidates.append(px.last());
+            }
+            table[la] = shared.computeIfAbsent(candidates, c -> c.toJavaArray(n -> new Parser[n]));
+        }
+        return table;
+    }
+
     @Override
-    public Either<E, A> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
-        Iterator<Parser<E, A>> iterator = px.iterator();
-        Either<E, A> res;
-        do {
-            res = in.withMarker(m -> {
-                Either<E, A> r = iterator.next().parse(in, trace);
-                if (r.isLeft()) {
-                    m.rewind();
+    public boolean parseInto(Input in, Result<E, A> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        for (Parser<E, A> p : candidates(in)) {
+            try (Input.Marker m = in.mark()) {
+                if (p.parseInto(in, out, trace)) {
+                    return true;
+                }
+                if (m.isCut()) {
+                    return false;
                 }
-                return r;
-            });
-            if (res.isRight()) {
-                break;
+                m.rewind();
             }
-        } while (iterator.hasNext());
-        return res;
+        }
+        return false;
+    }
+
+    /**
+     * @return the alternatives that have to be tried in order at the current position of {@code in}
+     */
+    Parser<E, A>[] candidates(Input in) throws IOException {
+        int la = dispatch == null
+                ? -1
+                : lookahead(in);
+        return la < 0
+                ? all
+                : dispatch[la];
+    }
+
+    /**
+     * @return the next byte, {@link #END} or -1 if the input could not tell
+     */
+    private static int lookahead(Input in) throws IOException {
+        try (Input.Marker m = in.mark()) {
+            Input.Chunk read = in.read(1);
+            int la = read.size() == 1 ? read.byteAt(0) & 0xff
+                    : read.isTail() ? END
+                    : -1;
+            m.rewind();
+            return la;
+        }
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return px.map(Parser::firstSet).reduce(FirstSet::union);
+    }
+
+    @Override
+    public Parser<E, A> mapChildren(@NonNull Rewrite f) {
+        return new FirstMatch<>(px.map(f::apply));
     }
 }
@@ -0,0 +1,106 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Parser;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * The lookaheads under which a {@link Parser} can succeed: the set of bytes that may follow the current position
+ * and whether it may succeed at the end of the input. If the next byte is not in the {@link FirstSet} of a parser,
+ * that parser is guaranteed to fail. Parsers that can not be analysed or that may succeed without consuming input
+ * have {@link #ALL} as their {@link FirstSet}.
+ *
+ * @see Parser#firstSet()
+ */
+@Value
+@AllArgsConstructor(access = PRIVATE)
+public class FirstSet {
+    private static final long[] NO_BYTES = {0, 0, 0, 0};
+    private static final long[] ALL_BYTES = {-1, -1, -1, -1};
+
+    public static final FirstSet NONE = new FirstSet(NO_BYTES, false);
+    public static final FirstSet END = new FirstSet(NO_BYTES, true);
+    public static final FirstSet BYTES = new FirstSet(ALL_BYTES, false);
+    public static final FirstSet ALL = new FirstSet(ALL_BYTES, true);
+
+    long[] bits;
+    boolean end;
+
+    public static FirstSet of(@NonNull byte... bytes) {
+        long[] bits = new long[4];
+        for (byte b : bytes) {
+            bits[(b & 0xff) >>> 6] |= 1L << b;
+        }
+        return new FirstSet(bits, false);
+    }
+
+    /**
+     * @param from first unsigned byte value of the range
+     * @param to last unsigned byte value of the range, inclusive
+     * @return all bytes in the range
+     */
+    public static FirstSet range(int from, int to) {
+        long[] bits = new long[4];
+        for (int b = from; b <= to; b++) {
+            bits[b >>> 6] |= 1L << b;
+        }
+        return new FirstSet(bits, false);
+    }
+
+    /**
+     * @param table whether a byte is included, indexed by its unsigned value
+     * @return all bytes included by {@code table}
+     */
+    static FirstSet matching(boolean[] table) {
+        long[] bits = new long[4];
+        for (int b = 0; b < 256; b++) {
+            if (table[b]) {
+                bits[b >>> 6] |= 1L << b;
+            }
+        }
+        return new FirstSet(bits, false);
+    }
+
+    public FirstSet union(@NonNull FirstSet other) {
+        long[] bits = new long[4];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = this.bits[i] | other.bits[i];
+        }
+        return new FirstSet(bits, end || other.end);
+    }
+
+    public boolean contains(byte b) {
+        return (bits[(b & 0xff) >>> 6] & (1L << b)) != 0;
+    }
+
+    /**
+     * @return whether the parser may succeed at the end of the input
+     */
+    public boolean containsEnd() {
+        return end;
+    }
+
+    public boolean isAll() {
+        return end && containsAllBytes();
+    }
+
+    private boolean containsAllBytes() {
+        return (bits[0] & bits[1] & bits[2] & bits[3]) == -1;
+    }
+
+    public String toString() {
+        if (isAll()) {
+            return "ALL";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int b = 0; b < 256; b++) {
+            if (contains((byte) b)) {
+                sb.append(sb.length() > 1 ? ", " : "").append(b);
+            }
+        }
+        return sb.append(end ? (sb.length() > 1 ? ", EOF}" : "EOF}") : "}").toString();
+    }
+}
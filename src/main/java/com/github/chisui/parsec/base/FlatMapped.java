@@ -2,7 +2,9 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -10,15 +12,64 @@ import java.io.IOException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import static com.github.chisui.parsec.base.NamedFunction.named;
+
 @Value
-public class FlatMapped<E, F, R, S> implements Parser<F, S> {
+public class FlatMapped<E, F, R, S> implements ResultParser<F, S> {
     @NonNull Parser<E, R> p;
     @NonNull Function<E, Parser<F, S>> f;
     @NonNull Function<R, Parser<F, S>> g;
 
+    private static final Function<?, ?> PROPAGATE_ERROR = named("error", Parser::error);
+
+    /**
+     * The error continuation of {@link Parser#flatMap(Function)}. {@link FlatMapped} nodes using it can only succeed
+     * if {@link #p()} succeeds, which makes them analysable.
+     */
+    @SuppressWarnings({
+            "unchecked", // Parser::error is polymorphic
+    })
+    public static <E, F, S> Function<E, Parser<F, S>> propagateError() {
+        return (Function<E, Parser<F, S>>) PROPAGATE_ERROR;
+    }
+
+    /**
+     * Propagated errors are left in {@code out} as they are instead of being parsed by an error {@link Const}.
+     */
+    @Override
+    public boolean parseInto(Input in, Result<F, S> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, R> res = out.retype();
+        if (p.parseInto(in, res, trace)) {
+            return g.apply(res.get()).parseInto(in, out, trace);
+        } else if (f == PROPAGATE_ERROR) {
+            return false;
+        } else {
+            return f.apply(res.getError()).parseInto(in, out, trace);
+        }
+    }
+
+    /**
+     * If errors are propagated this can only succeed where {@link #p()} succeeds.
+     */
+    @Override
+    public FirstSet firstSet() {
+        return f == PROPAGATE_ERROR
+                ? p.firstSet()
+                : FirstSet.ALL;
+    }
+
+    /**
+     * The continuations are rewritten each time they produce a parser. Propagated errors are kept as they are.
+     */
     @Override
-    public Either<F, S> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        return p.parse(in, trace).fold(f, g).parse(in, trace);
+    public Parser<F, S> mapChildren(@NonNull Rewrite h) {
+        return new FlatMapped<>(h.apply(p), rewritten(f, h), rewritten(g, h));
+    }
+
+    private static <A, F, S> Function<A, Parser<F, S>> rewritten(Function<A, Parser<F, S>> k, Rewrite h) {
+        return k == PROPAGATE_ERROR
+                ? k
+                : named(k.toString(), a -> h.apply(k.apply(a)));
     }
 
     public String toString() {
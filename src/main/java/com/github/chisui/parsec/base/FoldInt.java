@@ -0,0 +1,53 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Like {@link ZeroOrMore} but folds the unboxed results of {@code p} into an {@code int} instead of collecting them.
+ */
+@Value
+public class FoldInt<X, E> implements IntParser<X> {
+    @NonNull IntParser<E> p;
+    int init;
+    @NonNull IntBinaryOperator op;
+
+    @Override
+    public boolean parseInt(Input in, Result<X, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        int acc = init;
+        Result<E, ?> res = out.retype();
+        while (true) {
+            try (Input.Marker m = in.mark()) {
+                if (!p.parseInt(in, res, trace)) {
+                    if (m.isCut()) {
+                        return false;
+                    }
+                    m.rewind();
+                    break;
+                } else {
+                    acc = op.applyAsInt(acc, res.getInt());
+                }
+            }
+        }
+        return out.succeedInt(acc);
+    }
+
+    @Override
+    public Parser<X, Integer> mapChildren(@NonNull Rewrite f) {
+        return new FoldInt<>(IntParser.of(f.apply(p)), init, op);
+    }
+
+    public String toString() {
+        return "foldInt(" + p + ", " + init + ", " + op + ")";
+    }
+}
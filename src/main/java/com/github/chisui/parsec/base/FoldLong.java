@@ -0,0 +1,53 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.LongParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Like {@link ZeroOrMore} but folds the unboxed results of {@code p} into a {@code long} instead of collecting them.
+ */
+@Value
+public class FoldLong<X, E> implements LongParser<X> {
+    @NonNull LongParser<E> p;
+    long init;
+    @NonNull LongBinaryOperator op;
+
+    @Override
+    public boolean parseLong(Input in, Result<X, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        long acc = init;
+        Result<E, ?> res = out.retype();
+        while (true) {
+            try (Input.Marker m = in.mark()) {
+                if (!p.parseLong(in, res, trace)) {
+                    if (m.isCut()) {
+                        return false;
+                    }
+                    m.rewind();
+                    break;
+                } else {
+                    acc = op.applyAsLong(acc, res.getLong());
+                }
+            }
+        }
+        return out.succeedLong(acc);
+    }
+
+    @Override
+    public Parser<X, Long> mapChildren(@NonNull Rewrite f) {
+        return new FoldLong<>(LongParser.of(f.apply(p)), init, op);
+    }
+
+    public String toString() {
+        return "foldLong(" + p + ", " + init + ", " + op + ")";
+    }
+}
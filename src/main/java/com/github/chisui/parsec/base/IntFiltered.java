@@ -0,0 +1,46 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import io.vavr.control.Either;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import static io.vavr.API.*;
+
+@Value
+public class IntFiltered<E> implements IntParser<Either<E, Integer>> {
+    @NonNull IntParser<E> p;
+    @NonNull IntPredicate predicate;
+
+    @Override
+    public boolean parseInt(Input in, Result<Either<E, Integer>, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, ?> res = out.retype();
+        if (!p.parseInt(in, res, trace)) {
+            return out.fail(Left(res.getError()));
+        }
+        int value = res.getInt();
+        return predicate.test(value) || out.fail(Right(value));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<Either<E, Integer>, Integer> mapChildren(@NonNull Rewrite f) {
+        return new IntFiltered<>(IntParser.of(f.apply(p)), predicate);
+    }
+
+    public String toString() {
+        return p + ".filterInt(" + predicate + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * {@link Seq2#first()} of an {@link IntParser}, which keeps the value of {@code p} unboxed while {@code q} runs.
+ */
+@Value
+public class IntFollowedBy<E, B> implements IntParser<E> {
+    @NonNull IntParser<E> p;
+    @NonNull Parser<E, B> q;
+
+    @Override
+    public boolean parseInt(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        if (!p.parseInt(in, out, trace)) {
+            return false;
+        }
+        int value = out.getInt();
+        return q.parseInto(in, out.retype(), trace)
+                && out.succeedInt(value);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, Integer> mapChildren(@NonNull Rewrite f) {
+        return new IntFollowedBy<>(IntParser.of(f.apply(p)), f.apply(q));
+    }
+
+    public String toString() {
+        return p + ".followedBy(" + q + ")";
+    }
+}
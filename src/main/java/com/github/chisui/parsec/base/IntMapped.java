@@ -0,0 +1,44 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+@Value
+public class IntMapped<E> implements IntParser<E> {
+    @NonNull IntParser<E> p;
+    @NonNull IntUnaryOperator f;
+
+    @Override
+    public boolean parseInt(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return p.parseInt(in, out, trace)
+                && out.succeedInt(f.applyAsInt(out.getInt()));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public IntParser<E> mapInt(@NonNull IntUnaryOperator g) {
+        return new IntMapped<>(p, f.andThen(g));
+    }
+
+    @Override
+    public Parser<E, Integer> mapChildren(@NonNull Rewrite g) {
+        return new IntMapped<>(IntParser.of(g.apply(p)), f);
+    }
+
+    public String toString() {
+        return p + ".mapInt(" + f + ")";
+    }
+}
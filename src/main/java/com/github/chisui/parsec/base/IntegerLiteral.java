@@ -0,0 +1,146 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.LongParser;
+import com.github.chisui.parsec.NumberError;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * An integer in decimal with an optional sign, or an unsigned integer of up to 64 bits in hexadecimal. Digits are
+ * accumulated straight from the read {@link Input.Chunk}s without decoding characters. On failure no input is
+ * consumed. The value is stored unboxed, {@link #DECIMAL_INT} narrows it to an {@link IntParser}.
+ */
+@Value
+public class IntegerLiteral implements LongParser<NumberError> {
+    static final int READ_SIZE = 32;
+
+    private static final byte[] DIGITS = new byte[256];
+
+    static {
+        Arrays.fill(DIGITS, (byte) -1);
+        for (int c = '0'; c <= '9'; c++) {
+            DIGITS[c] = (byte) (c - '0');
+        }
+        for (int c = 'a'; c <= 'f'; c++) {
+            DIGITS[c] = (byte) (c - 'a' + 10);
+            DIGITS[c - 'a' + 'A'] = (byte) (c - 'a' + 10);
+        }
+    }
+
+    public static final Narrowed DECIMAL_INT = new Narrowed(new IntegerLiteral(
+            "decimalInt", false, Integer.MIN_VALUE, Integer.MAX_VALUE));
+    public static final IntegerLiteral DECIMAL_LONG = new IntegerLiteral(
+            "decimalLong", false, Long.MIN_VALUE, Long.MAX_VALUE);
+    public static final IntegerLiteral HEX_LONG = new IntegerLiteral(
+            "hexLong", true, 0, -1);
+
+    @NonNull String name;
+    /** hexadecimal and unsigned instead of decimal and signed */
+    boolean hex;
+    long min;
+    long max;
+
+    @Override
+    public boolean parseLong(Input in, Result<NumberError, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        try (Input.Marker start = in.mark()) {
+            long value = 0;
+            int count = 0;
+            int digits = 0;
+            boolean negative = false;
+            boolean overflow = false;
+            // decimals are accumulated negatively like Long.parseLong does, to reach Long.MIN_VALUE
+            long limit = -max;
+            scan:
+            while (true) {
+                Input.Chunk read = in.read(READ_SIZE);
+                int size = read.size();
+                if (size == 0) {
+                    if (read.isTail()) {
+                        break;
+                    }
+                    continue;
+                }
+                byte[] bytes = read.hasArray() ? read.volatileBytes() : null;
+                ByteBuffer buffer = bytes == null ? read.buffer() : null;
+                int offset = bytes == null ? buffer.position() : read.start();
+                for (int i = 0; i < size; i++) {
+                    int b = (bytes != null ? bytes[offset + i] : buffer.get(offset + i)) & 0xff;
+                    int d = DIGITS[b];
+                    if (d < 0 || !hex && d > 9) {
+                        if (count == 0 && !hex && (b == '-' || b == '+')) {
+                            negative = b == '-';
+                            limit = negative ? min : -max;
+                            count++;
+                            continue;
+                        }
+                        break scan;
+                    }
+                    if (hex) {
+                        overflow = (value >>> 60) != 0;
+                        value = value << 4 | d;
+                    } else {
+                        overflow = value < limit / 10 || value * 10 < limit + d;
+                        value = value * 10 - d;
+                    }
+                    if (overflow) {
+                        break scan;
+                    }
+                    count++;
+                    digits++;
+                }
+            }
+            start.rewind();
+            if (overflow) {
+                return out.fail(NumberError.OVERFLOW);
+            } else if (digits == 0) {
+                return out.fail(NumberError.NO_DIGITS);
+            }
+            in.skip(count);
+            return out.succeedLong(hex || negative ? value : -value);
+        }
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        FirstSet digits = FirstSet.range('0', '9');
+        return hex
+                ? digits.union(FirstSet.range('a', 'f')).union(FirstSet.range('A', 'F'))
+                : digits.union(FirstSet.of((byte) '-', (byte) '+'));
+    }
+
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * An {@link IntegerLiteral} bounded to the range of {@code int}, whose unboxed value can be read as an {@code int}.
+     */
+    @Value
+    public static class Narrowed implements IntParser<NumberError> {
+        @NonNull IntegerLiteral literal;
+
+        @Override
+        public boolean parseInt(Input in, Result<NumberError, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+            return literal.parseLong(in, out, trace);
+        }
+
+        @Override
+        public FirstSet firstSet() {
+            return literal.firstSet();
+        }
+
+        public String toString() {
+            return literal.toString();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.LongParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import io.vavr.control.Either;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import static io.vavr.API.*;
+
+@Value
+public class LongFiltered<E> implements LongParser<Either<E, Long>> {
+    @NonNull LongParser<E> p;
+    @NonNull LongPredicate predicate;
+
+    @Override
+    public boolean parseLong(Input in, Result<Either<E, Long>, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, ?> res = out.retype();
+        if (!p.parseLong(in, res, trace)) {
+            return out.fail(Left(res.getError()));
+        }
+        long value = res.getLong();
+        return predicate.test(value) || out.fail(Right(value));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<Either<E, Long>, Long> mapChildren(@NonNull Rewrite f) {
+        return new LongFiltered<>(LongParser.of(f.apply(p)), predicate);
+    }
+
+    public String toString() {
+        return p + ".filterLong(" + predicate + ")";
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.LongParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * {@link Seq2#first()} of an {@link LongParser}, which keeps the value of {@code p} unboxed while {@code q} runs.
+ */
+@Value
+public class LongFollowedBy<E, B> implements LongParser<E> {
+    @NonNull LongParser<E> p;
+    @NonNull Parser<E, B> q;
+
+    @Override
+    public boolean parseLong(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        if (!p.parseLong(in, out, trace)) {
+            return false;
+        }
+        long value = out.getLong();
+        return q.parseInto(in, out.retype(), trace)
+                && out.succeedLong(value);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, Long> mapChildren(@NonNull Rewrite f) {
+        return new LongFollowedBy<>(LongParser.of(f.apply(p)), f.apply(q));
+    }
+
+    public String toString() {
+        return p + ".followedBy(" + q + ")";
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.LongParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+
+@Value
+public class LongMapped<E> implements LongParser<E> {
+    @NonNull LongParser<E> p;
+    @NonNull LongUnaryOperator f;
+
+    @Override
+    public boolean parseLong(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return p.parseLong(in, out, trace)
+                && out.succeedLong(f.applyAsLong(out.getLong()));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public LongParser<E> mapLong(@NonNull LongUnaryOperator g) {
+        return new LongMapped<>(p, f.andThen(g));
+    }
+
+    @Override
+    public Parser<E, Long> mapChildren(@NonNull Rewrite g) {
+        return new LongMapped<>(LongParser.of(g.apply(p)), f);
+    }
+
+    public String toString() {
+        return p + ".mapLong(" + f + ")";
+    }
+}
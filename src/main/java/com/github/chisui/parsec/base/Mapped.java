@@ -2,7 +2,9 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -11,14 +13,22 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 @Value
-public class Mapped<E, F, R, S> implements Parser<F, S> {
+public class Mapped<E, F, R, S> implements ResultParser<F, S> {
     @NonNull Parser<E, R> p;
     @NonNull Function<R, S> f;
     @NonNull Function<E, F> g;
 
     @Override
-    public Either<F, S> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        return p.parse(in, trace).bimap(g, f);
+    public boolean parseInto(Input in, Result<F, S> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, R> res = out.retype();
+        return p.parseInto(in, res, trace)
+                ? out.succeed(f.apply(res.get()))
+                : out.fail(g.apply(res.getError()));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
     }
 
     @Override
@@ -31,6 +41,11 @@ public class Mapped<E, F, R, S> implements Parser<F, S> {
         return new Mapped<>(p, f, g.andThen(h));
     }
 
+    @Override
+    public Parser<F, S> mapChildren(@NonNull Rewrite h) {
+        return new Mapped<>(h.apply(p), f, g);
+    }
+
     public String toString() {
         return p + ".bimap(" + f + ", " + g + ")";
     }
@@ -0,0 +1,40 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.IntParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+@Value
+public class MappedToInt<E, R> implements IntParser<E> {
+    @NonNull Parser<E, R> p;
+    @NonNull ToIntFunction<R> f;
+
+    @Override
+    public boolean parseInt(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, R> res = out.retype();
+        return p.parseInto(in, res, trace)
+                && out.succeedInt(f.applyAsInt(res.get()));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, Integer> mapChildren(@NonNull Rewrite g) {
+        return new MappedToInt<>(g.apply(p), f);
+    }
+
+    public String toString() {
+        return p + ".mapToInt(" + f + ")";
+    }
+}
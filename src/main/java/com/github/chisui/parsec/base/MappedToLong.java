@@ -0,0 +1,40 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.LongParser;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+@Value
+public class MappedToLong<E, R> implements LongParser<E> {
+    @NonNull Parser<E, R> p;
+    @NonNull ToLongFunction<R> f;
+
+    @Override
+    public boolean parseLong(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, R> res = out.retype();
+        return p.parseInto(in, res, trace)
+                && out.succeedLong(f.applyAsLong(res.get()));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, Long> mapChildren(@NonNull Rewrite g) {
+        return new MappedToLong<>(g.apply(p), f);
+    }
+
+    public String toString() {
+        return p + ".mapToLong(" + f + ")";
+    }
+}
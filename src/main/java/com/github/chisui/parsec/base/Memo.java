@@ -0,0 +1,150 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import static lombok.AccessLevel.NONE;
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Packrat memoization of {@link #p()}. Results are cached per start position together with the position parsing
+ * ended at, so a repeated attempt at the same position skips to that end instead of parsing again.
+ *
+ * The table keeps the last {@link #capacity()} start positions. A start position evicts the one {@link #capacity()}
+ * bytes before it, so memory stays bounded on streaming inputs and the table follows the head like a sliding window.
+ * Tables are kept per {@link Input} and only weakly reference it, so the cached results are released with the input
+ * instead of staying reachable from the thread that parsed it.
+ */
+@Value
+@AllArgsConstructor(access = PRIVATE)
+public class Memo<E, R> implements ResultParser<E, R> {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    @NonNull Parser<E, R> p;
+    int capacity;
+    @Getter(NONE)
+    @EqualsAndHashCode.Exclude
+    Map<Input, Table> tables = new WeakHashMap<>();
+    /** the table last used by each thread, so the shared map is only consulted when the input changes */
+    @Getter(NONE)
+    @EqualsAndHashCode.Exclude
+    ThreadLocal<WeakReference<Table>> current = ThreadLocal.withInitial(() -> new WeakReference<>(null));
+
+    public static <E, R> Memo<E, R> of(@NonNull Parser<E, R> p, int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException(
+                    "Expected capacity to be between 1 and " + MAX_CAPACITY + " but got " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        return new Memo<>(p, size < capacity ? size << 1 : size);
+    }
+
+    @Override
+    public boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        if (recall(in, out)) {
+            return out.isSuccess();
+        }
+        long start = in.position();
+        boolean success = p.parseInto(in, out, trace);
+        remember(start, in, success, out);
+        return success;
+    }
+
+    /**
+     * If a result for the current position is cached, store it in {@code out} and skip to where it ended.
+     *
+     * @return whether a result was cached
+     */
+    @SuppressWarnings({
+            "unchecked", // values are stored with their success flag
+    })
+    boolean recall(Input in, Result<E, R> out) throws IOException {
+        Table table = table(in);
+        long start = in.position();
+        int i = (int) start & (capacity - 1);
+        if (table.starts[i] != start) {
+            return false;
+        }
+        in.skip(table.ends[i] - start);
+        if (table.successes[i]) {
+            out.succeed((R) table.values[i]);
+        } else {
+            out.fail((E) table.values[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Cache the result in {@code out} of parsing from {@code start} to the current position.
+     */
+    void remember(long start, Input in, boolean success, Result<E, R> out) {
+        Table table = table(in);
+        int i = (int) start & (capacity - 1);
+        table.starts[i] = start;
+        table.ends[i] = in.position();
+        table.successes[i] = success;
+        table.values[i] = success ? out.get() : out.getError();
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    private Table table(Input in) {
+        Table table = current.get().get();
+        if (table == null || table.input.get() != in) {
+            synchronized (tables) {
+                table = tables.computeIfAbsent(in, key -> new Table(key, capacity));
+            }
+            current.set(new WeakReference<>(table));
+        }
+        return table;
+    }
+
+    private static final class Table {
+        private final WeakReference<Input> input;
+        private final long[] starts;
+        private final long[] ends;
+        private final boolean[] successes;
+        private final Object[] values;
+
+        private Table(Input input, int capacity) {
+            this.input = new WeakReference<>(input);
+            starts = new long[capacity];
+            ends = new long[capacity];
+            successes = new boolean[capacity];
+            values = new Object[capacity];
+            Arrays.fill(starts, -1);
+        }
+    }
+
+    /**
+     * The rewritten parser gets tables of its own.
+     */
+    @Override
+    public Parser<E, R> mapChildren(@NonNull Rewrite f) {
+        return new Memo<>(f.apply(p), capacity);
+    }
+
+    public String toString() {
+        return "memo(" + p + ")";
+    }
+}
@@ -2,7 +2,9 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -10,14 +12,16 @@ import java.io.IOException;
 import java.util.function.Consumer;
 
 @Value
-public class Not<E, R> implements Parser<R, E> {
+public class Not<E, R> implements ResultParser<R, E> {
     @NonNull Parser<E, R> p;
 
     @Override
-    public Either<R, E> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
-        return p.parse(in, trace)
-                .fold(Either::right, Either::left);
+    public boolean parseInto(Input in, Result<R, E> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        Result<E, R> res = out.retype();
+        return p.parseInto(in, res, trace)
+                ? out.fail(res.get())
+                : out.succeed(res.getError());
     }
 
     @Override
@@ -25,6 +29,11 @@ public class Not<E, R> implements Parser<R, E> {
         return p;
     }
 
+    @Override
+    public Parser<R, E> mapChildren(@NonNull Rewrite f) {
+        return new Not<>(f.apply(p));
+    }
+
     public String toString() {
         return "not(" + p + ")";
     }
@@ -0,0 +1,193 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static lombok.AccessLevel.NONE;
+
+/**
+ * Matches the longest of a set of literals and returns its index. On failure the error is the number of bytes that
+ * matched a prefix of some literal.
+ *
+ * The literals are compiled into a byte trie whose alphabet is reduced to the bytes that actually occur. The input
+ * is walked once: every read requests exactly as many bytes as are needed to reach the next accepting state, so a
+ * literal that ends where no longer literal continues is matched without a {@link Input.Marker}. Only after a literal
+ * matched that is a prefix of another literal a marker is set, to return to it if the longer one does not match.
+ */
+@Value
+public class OneOf implements ResultParser<Integer, Integer> {
+    private static final int NO_STATE = -1;
+
+    @NonNull byte[][] literals;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    int[] classes;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    int classCount;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    int[] transitions;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    int[] accepts;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    int[] distances;
+
+    public static OneOf of(@NonNull byte[]... literals) {
+        if (literals.length < 1) {
+            throw new IllegalArgumentException("need at least one literal");
+        }
+        return new OneOf(literals.clone());
+    }
+
+    private OneOf(byte[][] literals) {
+        this.literals = literals;
+        this.classes = new int[256];
+        int count = 1;
+        for (byte[] literal : literals) {
+            for (byte b : literal) {
+                if (classes[b & 0xff] == 0) {
+                    classes[b & 0xff] = count++;
+                }
+            }
+        }
+        this.classCount = count;
+
+        List<int[]> rows = new ArrayList<>();
+        List<Integer> accepting = new ArrayList<>();
+        rows.add(newRow(count));
+        accepting.add(NO_STATE);
+        for (int i = 0; i < literals.length; i++) {
+            int state = 0;
+            for (byte b : literals[i]) {
+                int[] row = rows.get(state);
+                int c = classes[b & 0xff];
+                if (row[c] == NO_STATE) {
+                    row[c] = rows.size();
+                    rows.add(newRow(count));
+                    accepting.add(NO_STATE);
+                }
+                state = row[c];
+            }
+            if (accepting.get(state) == NO_STATE) {
+                accepting.set(state, i);
+            }
+        }
+
+        int states = rows.size();
+        this.transitions = new int[states * count];
+        this.accepts = new int[states];
+        for (int s = 0; s < states; s++) {
+            System.arraycopy(rows.get(s), 0, transitions, s * count, count);
+            accepts[s] = accepting.get(s);
+        }
+        this.distances = new int[states];
+        for (int s = states - 1; s >= 0; s--) {
+            int min = Integer.MAX_VALUE;
+            for (int c = 1; c < count; c++) {
+                int next = transitions[s * count + c];
+                if (next != NO_STATE) {
+                    min = Math.min(min, accepts[next] != NO_STATE ? 1 : 1 + distances[next]);
+                }
+            }
+            distances[s] = min == Integer.MAX_VALUE ? 0 : min;
+        }
+    }
+
+    private static int[] newRow(int count) {
+        int[] row = new int[count];
+        Arrays.fill(row, NO_STATE);
+        return row;
+    }
+
+    @Override
+    public boolean parseInto(Input in, Result<Integer, Integer> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        int state = 0;
+        int matched = 0;
+        int accepted = accepts[0];
+        boolean atAccepted = accepted != NO_STATE;
+        Input.Marker fallback = atAccepted && distances[0] > 0
+                ? in.mark()
+                : null;
+        try {
+            while (distances[state] > 0) {
+                // reading exactly the distance to the nearest accepting state means it can only be reached at the
+                // end of a chunk, so the fallback marker is set at the position right after the accepted literal
+                Input.Chunk read = in.read(distances[state]);
+                int size = read.size();
+                if (size == 0) {
+                    if (read.isTail()) {
+                        break;
+                    }
+                    continue;
+                }
+                atAccepted = false;
+                int i = 0;
+                for (; i < size; i++) {
+                    int next = transitions[state * classCount + classes[read.byteAt(i) & 0xff]];
+                    if (next == NO_STATE) {
+                        break;
+                    }
+                    state = next;
+                }
+                matched += i;
+                if (i < size) {
+                    break;
+                }
+                if (accepts[state] != NO_STATE) {
+                    accepted = accepts[state];
+                    atAccepted = true;
+                    if (distances[state] > 0) {
+                        if (fallback != null) {
+                            fallback.close();
+                        }
+                        fallback = in.mark();
+                    }
+                }
+            }
+            if (accepted == NO_STATE) {
+                return out.fail(matched);
+            }
+            if (!atAccepted) {
+                fallback.rewind();
+            }
+            return out.succeed(accepted);
+        } finally {
+            if (fallback != null) {
+                fallback.close();
+            }
+        }
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        if (accepts[0] != NO_STATE) {
+            return FirstSet.ALL;
+        }
+        FirstSet set = FirstSet.NONE;
+        for (byte[] literal : literals) {
+            set = set.union(FirstSet.of(literal[0]));
+        }
+        return set;
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("oneOf(");
+        for (int i = 0; i < literals.length; i++) {
+            sb.append(i > 0 ? ", " : "").append('"').append(new String(literals[i], StandardCharsets.UTF_8)).append('"');
+        }
+        return sb.append(')').toString();
+    }
+}
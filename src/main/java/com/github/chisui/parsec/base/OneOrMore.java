@@ -2,7 +2,9 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
 import lombok.NonNull;
 import lombok.Value;
 
@@ -11,37 +13,42 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collector;
 
-import static io.vavr.API.Left;
-import static io.vavr.API.Right;
-
 @Value
-public class OneOrMore<E, A, R, S> implements Parser<E, S> {
+public class OneOrMore<E, A, R, S> implements ResultParser<E, S> {
     @NonNull Parser<E, R> p;
     @NonNull Collector<R, A, S> col;
 
     @Override
-    public Either<E, S> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
-        A out = col.supplier().get();
-        Either<E, R> res = p.parse(in, trace);
+    public boolean parseInto(Input in, Result<E, S> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        A acc = col.supplier().get();
         BiConsumer<A, R> accum = col.accumulator();
-        if (res.isLeft()) {
-            return Left(res.getLeft());
-        } else {
-            accum.accept(out, res.get());
+        Result<E, R> res = out.retype();
+        if (!ZeroOrMore.accumulate(col, accum, p, in, res, acc, trace)) {
+            return false;
         }
         while (true) {
             try (Input.Marker m = in.mark()) {
-                res = p.parse(in, trace);
-                if (res.isLeft()) {
+                if (!ZeroOrMore.accumulate(col, accum, p, in, res, acc, trace)) {
+                    if (m.isCut()) {
+                        return false;
+                    }
                     m.rewind();
                     break;
-                } else {
-                    accum.accept(out, res.get());
                 }
             }
         }
-        return Right(col.finisher().apply(out));
+        return out.succeed(col.finisher().apply(acc));
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, S> mapChildren(@NonNull Rewrite f) {
+        return new OneOrMore<>(f.apply(p), col);
     }
 
     public String toString() {
@@ -0,0 +1,73 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Parses {@link #p()} and then {@link #q()} and combines their results with {@link #f()}. Unlike
+ * {@link Parser#flatMap(java.util.function.Function)} no parser is created while parsing. Longer sequences nest it,
+ * see {@link Parser#sequence(Parser[])}.
+ */
+@Value
+public class Seq2<E, A, B, C> implements ResultParser<E, C> {
+    @NonNull Parser<E, A> p;
+    @NonNull Parser<E, B> q;
+    @NonNull BiFunction<A, B, C> f;
+
+    private static final BiFunction<?, ?, ?> FIRST = NamedBiFunction.named2("first", (a, b) -> a);
+    private static final BiFunction<?, ?, ?> SECOND = NamedBiFunction.named2("second", (a, b) -> b);
+
+    @SuppressWarnings({
+            "unchecked", // polymorphic function
+    })
+    public static <A, B> BiFunction<A, B, A> first() {
+        return (BiFunction<A, B, A>) FIRST;
+    }
+
+    @SuppressWarnings({
+            "unchecked", // polymorphic function
+    })
+    public static <A, B> BiFunction<A, B, B> second() {
+        return (BiFunction<A, B, B>) SECOND;
+    }
+
+    @Override
+    public boolean parseInto(Input in, Result<E, C> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, A> a = out.retype();
+        if (!p.parseInto(in, a, trace)) {
+            return false;
+        }
+        A first = a.get();
+        Result<E, B> b = out.retype();
+        return q.parseInto(in, b, trace)
+                && out.succeed(f.apply(first, b.get()));
+    }
+
+    /**
+     * Can only succeed where {@link #p()} succeeds.
+     */
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, C> mapChildren(@NonNull Rewrite h) {
+        return new Seq2<>(h.apply(p), h.apply(q), f);
+    }
+
+    public String toString() {
+        return f == SECOND ? p + ".then(" + q + ")"
+                : f == FIRST ? p + ".followedBy(" + q + ")"
+                : p + ".then(" + q + ", " + f + ")";
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import io.vavr.collection.List;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static lombok.AccessLevel.NONE;
+
+/**
+ * Parses all of {@link #px()} in order and returns their results, or the error of the first one that failed.
+ */
+@Value
+public class Sequence<E, R> implements ResultParser<E, List<R>> {
+    @NonNull List<Parser<E, R>> px;
+    @Getter(NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    Parser<E, R>[] parsers;
+
+    @SafeVarargs
+    @SuppressWarnings({
+            "unchecked", "rawtypes", "varargs", // list of parsers
+    })
+    public static <E, R> Parser<E, List<R>> of(Parser<? extends E, ? extends R>... px) {
+        return new Sequence<>((List) List.of(px));
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // generic array
+    })
+    private Sequence(List<Parser<E, R>> px) {
+        this.px = px;
+        this.parsers = px.toJavaArray(n -> new Parser[n]);
+    }
+
+    @Override
+    @SuppressWarnings({
+            "unchecked", // values are the results of px
+    })
+    public boolean parseInto(Input in, Result<E, List<R>> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Object[] values = new Object[parsers.length];
+        Result<E, R> res = out.retype();
+        for (int i = 0; i < parsers.length; i++) {
+            if (!parsers[i].parseInto(in, res, trace)) {
+                return false;
+            }
+            values[i] = res.get();
+        }
+        return out.succeed(toList(values));
+    }
+
+    Parser<E, R>[] parsers() {
+        return parsers;
+    }
+
+    @SuppressWarnings({
+            "unchecked", // values are the results of px
+    })
+    static <R> List<R> toList(Object[] values) {
+        List<R> list = List.empty();
+        for (int i = values.length - 1; i >= 0; i--) {
+            list = list.prepend((R) values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Can only succeed where the first parser succeeds.
+     */
+    @Override
+    public FirstSet firstSet() {
+        return parsers.length == 0
+                ? FirstSet.ALL
+                : parsers[0].firstSet();
+    }
+
+    @Override
+    public Parser<E, List<R>> mapChildren(@NonNull Rewrite f) {
+        return new Sequence<>(px.map(f::apply));
+    }
+
+    public String toString() {
+        return px.mkString("sequence(", ", ", ")");
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.BytePredicate;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import io.vavr.Tuple0;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static io.vavr.API.*;
+import static lombok.AccessLevel.NONE;
+
+/**
+ * Advances past the longest run of bytes matching {@code predicate} without copying them. Never fails.
+ *
+ * @see TakeWhile
+ */
+@Value
+public class SkipWhile<E> implements ResultParser<E, Tuple0> {
+    @NonNull BytePredicate predicate;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    boolean[] table;
+
+    public SkipWhile(@NonNull BytePredicate predicate) {
+        this.predicate = predicate;
+        this.table = TakeWhile.table(predicate);
+    }
+
+    @Override
+    public boolean parseInto(Input in, Result<E, Tuple0> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        while (true) {
+            try (Input.Marker m = in.mark()) {
+                Input.Chunk read = in.read(TakeWhile.READ_SIZE);
+                int size = read.size();
+                if (size == 0) {
+                    if (read.isTail()) {
+                        break;
+                    }
+                    continue;
+                }
+                int n = TakeWhile.span(table, read);
+                if (n < size) {
+                    m.rewind();
+                    in.skip(n);
+                    break;
+                }
+            }
+        }
+        return out.succeed(Tuple());
+    }
+
+    public String toString() {
+        return "skipWhile(" + predicate + ")";
+    }
+}
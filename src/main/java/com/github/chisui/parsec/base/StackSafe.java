@@ -0,0 +1,542 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.ParseState;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Runs {@link #p()} with an explicit stack of continuations instead of the Java call stack.
+ *
+ * {@link FlatMapped}, {@link Seq2}, {@link Sequence}, {@link Mapped}, {@link Not}, {@link TryParse},
+ * {@link FirstMatch}, {@link ZeroOrMore}, {@link OneOrMore}, {@link Commit} and {@link Memo} nodes, including the
+ * ones produced by flat map continuations while parsing, are interpreted by a loop that pushes a frame on the heap for
+ * each node it enters, so nesting and recursion through them run in constant Java stack. The continuation of a
+ * {@link FlatMapped} replaces its frame, so flat map chains in tail position, like right nested sequences, also need
+ * constant heap, while recursion that continues after the nested parse keeps one heap frame per level. All other
+ * parsers are called as usual, so recursion through a parser that is not interpreted still uses the Java stack.
+ */
+@Value
+public class StackSafe<E, R> implements ResultParser<E, R> {
+    @NonNull Parser<E, R> p;
+
+    @Override
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // a single result is retyped by every node
+    })
+    public boolean parseInto(Input in, Result<E, R> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        return new Interpreter(in, (Result) out, trace, false).run(p);
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, R> mapChildren(@NonNull Rewrite f) {
+        return new StackSafe<>(f.apply(p));
+    }
+
+    public String toString() {
+        return "stackSafe(" + p + ")";
+    }
+
+    /**
+     * A run that is suspended when its input throws {@link ParseState.NeedInput} and continues where it stopped on the
+     * next {@link #resume()}. Interpreted nodes keep their frames and {@link Expect} keeps the bytes it already
+     * matched. Any other parser is rewound and started again, so its functions may be applied more than once.
+     */
+    public static final class Run<E, R> {
+        private final Interpreter it;
+
+        @SuppressWarnings({
+                "unchecked", "rawtypes", // a single result is retyped by every node
+        })
+        private Run(Parser<E, R> p, Input in, Result<E, R> out) {
+            this.it = new Interpreter(in, (Result) out, NO_TRACE, true);
+            it.next = p;
+        }
+
+        public static <E, R> Run<E, R> of(@NonNull Parser<E, R> p, @NonNull Input in, @NonNull Result<E, R> out) {
+            return new Run<>(p, in, out);
+        }
+
+        /**
+         * @return whether the parser completed, with its outcome in the {@link Result} of the run, or was suspended
+         */
+        public boolean resume() throws IOException {
+            try {
+                it.loop();
+                return true;
+            } catch (ParseState.NeedInput e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The untyped state of one run. All nodes share the {@link Result} of the run like they do when called
+     * recursively.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class Interpreter {
+        private final Input in;
+        private final Result<Object, Object> out;
+        private final Consumer<? super Parser<?, ?>> trace;
+        private final ArrayDeque<Frame> stack = new ArrayDeque<>();
+        private final boolean resumable;
+        private Parser<?, ?> next;
+        private boolean success;
+
+        private Interpreter(
+                Input in,
+                Result<Object, Object> out,
+                Consumer<? super Parser<?, ?>> trace,
+                boolean resumable) {
+            this.in = in;
+            this.out = out;
+            this.trace = trace;
+            this.resumable = resumable;
+        }
+
+        private boolean run(Parser<?, ?> root) throws IOException {
+            next = root;
+            return loop();
+        }
+
+        /**
+         * Runs until the stack is empty. A resumable run that is suspended keeps {@link #next} and its stack, since
+         * neither is changed by a step that throws before it completed.
+         */
+        private boolean loop() throws IOException {
+            try {
+                while (true) {
+                    while (next != null) {
+                        next = enter(next);
+                    }
+                    Frame top = stack.peek();
+                    if (top == null) {
+                        return success;
+                    }
+                    next = top.resume(this);
+                }
+            } catch (Throwable e) {
+                if (!resumable || !(e instanceof ParseState.NeedInput)) {
+                    for (Frame frame : stack) {
+                        try {
+                            frame.close();
+                        } catch (Throwable suppressed) {
+                            e.addSuppressed(suppressed);
+                        }
+                    }
+                    stack.clear();
+                }
+                throw e;
+            }
+        }
+
+        private void traced(Parser<?, ?> p) {
+            Parser.traced(trace, p);
+        }
+
+        /**
+         * Start parsing {@code p}.
+         *
+         * @return the parser to start next or null if {@code p} completed with {@link #success}
+         */
+        private Parser<?, ?> enter(Parser<?, ?> p) throws IOException {
+            if (p instanceof FlatMapped) {
+                FlatMapped<?, ?, ?, ?> fm = (FlatMapped<?, ?, ?, ?>) p;
+                stack.push(new FlatMappedFrame(fm));
+                return fm.p();
+            } else if (p instanceof Seq2) {
+                Seq2<?, ?, ?, ?> seq = (Seq2<?, ?, ?, ?>) p;
+                stack.push(new Seq2Frame(seq));
+                return seq.p();
+            } else if (p instanceof Sequence) {
+                Parser<?, ?>[] parsers = ((Sequence<?, ?>) p).parsers();
+                if (parsers.length == 0) {
+                    success = out.succeed(Sequence.toList(parsers));
+                    return null;
+                }
+                stack.push(new SequenceFrame(parsers));
+                return parsers[0];
+            } else if (p instanceof Mapped) {
+                Mapped<?, ?, ?, ?> m = (Mapped<?, ?, ?, ?>) p;
+                stack.push(new MappedFrame(m));
+                return m.p();
+            } else if (p instanceof FirstMatch) {
+                traced(p);
+                Parser<?, ?>[] candidates = ((FirstMatch<?, ?>) p).candidates(in);
+                stack.push(new FirstMatchFrame(candidates, in.mark()));
+                return candidates[0];
+            } else if (p instanceof ZeroOrMore) {
+                traced(p);
+                ZeroOrMore<?, ?, ?, ?, ?> z = (ZeroOrMore<?, ?, ?, ?, ?>) p;
+                stack.push(new RepeatFrame(z.p(), z.col(), in.mark()));
+                return z.p();
+            } else if (p instanceof OneOrMore) {
+                traced(p);
+                OneOrMore<?, ?, ?, ?> o = (OneOrMore<?, ?, ?, ?>) p;
+                stack.push(new RepeatFrame(o.p(), o.col(), null));
+                return o.p();
+            } else if (p instanceof TryParse) {
+                traced(p);
+                stack.push(new TryParseFrame(in.mark()));
+                return ((TryParse<?, ?, ?>) p).p();
+            } else if (p instanceof Not) {
+                traced(p);
+                stack.push(NotFrame.INSTANCE);
+                return ((Not<?, ?>) p).p();
+            } else if (p instanceof Commit) {
+                traced(p);
+                stack.push(CommitFrame.INSTANCE);
+                return ((Commit<?, ?>) p).p();
+            } else if (p instanceof Memo) {
+                traced(p);
+                Memo memo = (Memo) p;
+                if (memo.recall(in, out)) {
+                    success = out.isSuccess();
+                    return null;
+                }
+                stack.push(new MemoFrame(memo, in.position()));
+                return memo.p();
+            } else if (p instanceof StackSafe) {
+                return ((StackSafe<?, ?>) p).p();
+            } else if (resumable && p instanceof Expect) {
+                traced(p);
+                stack.push(new ExpectFrame((Expect) p));
+                return null;
+            } else if (resumable) {
+                Input.Marker m = in.mark();
+                try {
+                    success = ((Parser) p).parseInto(in, out, trace);
+                } catch (ParseState.NeedInput e) {
+                    m.rewind();
+                    throw e;
+                } finally {
+                    m.close();
+                }
+                return null;
+            } else {
+                success = ((Parser) p).parseInto(in, out, trace);
+                return null;
+            }
+        }
+
+        /**
+         * Pop the top frame, which completed with {@code success}.
+         *
+         * @return null as the parser to start next
+         */
+        private Parser<?, ?> complete(boolean success) {
+            stack.pop();
+            this.success = success;
+            return null;
+        }
+    }
+
+    /**
+     * The continuation of a node whose child completed with {@link Interpreter#success}.
+     */
+    private interface Frame {
+
+        /**
+         * @return the parser to start next or null after the frame completed
+         */
+        Parser<?, ?> resume(Interpreter it) throws IOException;
+
+        /**
+         * Release held markers when parsing is aborted by an exception.
+         */
+        default void close() throws IOException {
+        }
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class FlatMappedFrame implements Frame {
+        private final FlatMapped fm;
+
+        private FlatMappedFrame(FlatMapped<?, ?, ?, ?> fm) {
+            this.fm = fm;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            if (!it.success && fm.f() == FlatMapped.propagateError()) {
+                return it.complete(false);
+            }
+            it.stack.pop();
+            return it.success
+                    ? (Parser<?, ?>) fm.g().apply(it.out.get())
+                    : (Parser<?, ?>) fm.f().apply(it.out.getError());
+        }
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class Seq2Frame implements Frame {
+        private final Seq2 seq;
+        private Object first;
+        private boolean second;
+
+        private Seq2Frame(Seq2<?, ?, ?, ?> seq) {
+            this.seq = seq;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            if (!it.success) {
+                return it.complete(false);
+            } else if (second) {
+                return it.complete(it.out.succeed(seq.f().apply(first, it.out.get())));
+            }
+            first = it.out.get();
+            second = true;
+            return seq.q();
+        }
+    }
+
+    private static final class SequenceFrame implements Frame {
+        private final Parser<?, ?>[] parsers;
+        private final Object[] values;
+        private int index;
+
+        private SequenceFrame(Parser<?, ?>[] parsers) {
+            this.parsers = parsers;
+            this.values = new Object[parsers.length];
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            if (!it.success) {
+                return it.complete(false);
+            }
+            values[index] = it.out.get();
+            if (++index < parsers.length) {
+                return parsers[index];
+            }
+            return it.complete(it.out.succeed(Sequence.toList(values)));
+        }
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class MappedFrame implements Frame {
+        private final Mapped m;
+
+        private MappedFrame(Mapped<?, ?, ?, ?> m) {
+            this.m = m;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            return it.complete(it.success
+                    ? it.out.succeed(m.f().apply(it.out.get()))
+                    : it.out.fail(m.g().apply(it.out.getError())));
+        }
+    }
+
+    private static final class FirstMatchFrame implements Frame {
+        private final Parser<?, ?>[] candidates;
+        private int index;
+        private Input.Marker marker;
+
+        private FirstMatchFrame(Parser<?, ?>[] candidates, Input.Marker marker) {
+            this.candidates = candidates;
+            this.marker = marker;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) throws IOException {
+            if (it.success) {
+                close();
+                return it.complete(true);
+            }
+            if (marker.isCut()) {
+                close();
+                return it.complete(false);
+            }
+            marker.rewind();
+            close();
+            if (++index == candidates.length) {
+                return it.complete(false);
+            }
+            marker = it.in.mark();
+            return candidates[index];
+        }
+
+        @Override
+        public void close() throws IOException {
+            Input.Marker m = marker;
+            marker = null;
+            if (m != null) {
+                m.close();
+            }
+        }
+    }
+
+    /**
+     * Repeats the child of a {@link ZeroOrMore} or, starting without a marker, of a {@link OneOrMore}.
+     */
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class RepeatFrame implements Frame {
+        private final Parser<?, ?> p;
+        private final Function finisher;
+        private final BiConsumer accumulator;
+        private final Object acc;
+        private Input.Marker marker;
+
+        private RepeatFrame(Parser<?, ?> p, Collector<?, ?, ?> col, Input.Marker marker) {
+            this.p = p;
+            this.finisher = col.finisher();
+            this.accumulator = col.accumulator();
+            this.acc = col.supplier().get();
+            this.marker = marker;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) throws IOException {
+            if (!it.success) {
+                if (marker == null || marker.isCut()) {
+                    close();
+                    return it.complete(false);
+                }
+                marker.rewind();
+                close();
+                return it.complete(it.out.succeed(finisher.apply(acc)));
+            }
+            accumulator.accept(acc, it.out.get());
+            close();
+            marker = it.in.mark();
+            return p;
+        }
+
+        @Override
+        public void close() throws IOException {
+            Input.Marker m = marker;
+            marker = null;
+            if (m != null) {
+                m.close();
+            }
+        }
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class TryParseFrame implements Frame {
+        private final Input.Marker marker;
+
+        private TryParseFrame(Input.Marker marker) {
+            this.marker = marker;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) throws IOException {
+            try (Input.Marker m = marker) {
+                if (!it.success && !m.isCut()) {
+                    m.rewind();
+                }
+            }
+            return it.complete(it.out.succeed(it.out.toEither()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            marker.close();
+        }
+    }
+
+    private enum NotFrame implements Frame {
+        INSTANCE;
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            return it.complete(it.success
+                    ? it.out.fail(it.out.get())
+                    : it.out.succeed(it.out.getError()));
+        }
+    }
+
+    private enum CommitFrame implements Frame {
+        INSTANCE;
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            if (it.success) {
+                it.in.cut();
+            }
+            return it.complete(it.success);
+        }
+    }
+
+    /**
+     * Matches an {@link Expect} chunk by chunk, so a suspended run continues after the bytes matched so far.
+     */
+    private static final class ExpectFrame implements Frame {
+        private final Expect expect;
+        private int pos;
+
+        private ExpectFrame(Expect expect) {
+            this.expect = expect;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) throws IOException {
+            byte[] expected = expect.expected();
+            while (pos < expected.length) {
+                Input.Chunk read = it.in.read(expected.length - pos);
+                int size = read.size();
+                int mismatch = expect.matching(read, pos);
+                if (mismatch < size) {
+                    return it.complete(it.out.fail(pos + mismatch));
+                }
+                pos += size;
+                if (size == 0 && read.isTail()) {
+                    return it.complete(it.out.fail(pos));
+                }
+            }
+            return it.complete(it.out.succeed(expected));
+        }
+    }
+
+    @SuppressWarnings({
+            "unchecked", "rawtypes", // nodes are interpreted untyped
+    })
+    private static final class MemoFrame implements Frame {
+        private final Memo memo;
+        private final long start;
+
+        private MemoFrame(Memo<?, ?> memo, long start) {
+            this.memo = memo;
+            this.start = start;
+        }
+
+        @Override
+        public Parser<?, ?> resume(Interpreter it) {
+            memo.remember(start, it.in, it.success, it.out);
+            return it.complete(it.success);
+        }
+    }
+}
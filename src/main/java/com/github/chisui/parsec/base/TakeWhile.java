@@ -0,0 +1,137 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.BytePredicate;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import io.vavr.Tuple0;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.Value;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static io.vavr.API.*;
+import static lombok.AccessLevel.NONE;
+
+/**
+ * The longest run of bytes matching {@code predicate}, scanned a whole {@link Input.Chunk} at a time. The predicate
+ * is evaluated once per byte value up front. If {@code nonEmpty} is set, an empty run is an error.
+ *
+ * @see SkipWhile
+ */
+@Value
+public class TakeWhile implements ResultParser<Tuple0, byte[]> {
+    static final int READ_SIZE = 8192;
+
+    @NonNull BytePredicate predicate;
+    boolean nonEmpty;
+    @Getter(NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    boolean[] table;
+
+    public TakeWhile(@NonNull BytePredicate predicate, boolean nonEmpty) {
+        this.predicate = predicate;
+        this.nonEmpty = nonEmpty;
+        this.table = table(predicate);
+    }
+
+    @Override
+    public boolean parseInto(Input in, Result<Tuple0, byte[]> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        byte[] bytes = null;
+        int length = 0;
+        while (true) {
+            try (Input.Marker m = in.mark()) {
+                Input.Chunk read = in.read(READ_SIZE);
+                int size = read.size();
+                if (size == 0) {
+                    if (read.isTail()) {
+                        break;
+                    }
+                    continue;
+                }
+                int n = span(table, read);
+                if (n > 0) {
+                    if (bytes == null) {
+                        bytes = read.hasArray()
+                                ? Arrays.copyOfRange(read.volatileBytes(), read.start(), read.start() + n)
+                                : new byte[n];
+                    } else if (length + n > bytes.length) {
+                        bytes = Arrays.copyOf(bytes, Math.max(length + n, 2 * bytes.length));
+                    }
+                    if (!read.hasArray() || length > 0) {
+                        copy(read, n, bytes, length);
+                    }
+                    length += n;
+                }
+                if (n < size) {
+                    m.rewind();
+                    in.skip(n);
+                    break;
+                }
+            }
+        }
+        if (length == 0) {
+            return nonEmpty ? out.fail(Tuple()) : out.succeed(new byte[0]);
+        }
+        return out.succeed(bytes.length == length ? bytes : Arrays.copyOf(bytes, length));
+    }
+
+    static boolean[] table(BytePredicate predicate) {
+        boolean[] table = new boolean[256];
+        for (int b = 0; b < 256; b++) {
+            table[b] = predicate.test((byte) b);
+        }
+        return table;
+    }
+
+    /**
+     * @return the number of leading bytes of {@code read} that are in {@code table}
+     */
+    static int span(boolean[] table, Input.Chunk read) {
+        if (read.hasArray()) {
+            byte[] bytes = read.volatileBytes();
+            int start = read.start();
+            int end = read.end();
+            int i = start;
+            while (i < end && table[bytes[i] & 0xff]) {
+                i++;
+            }
+            return i - start;
+        }
+        ByteBuffer buffer = read.buffer();
+        int start = buffer.position();
+        int end = buffer.limit();
+        int i = start;
+        while (i < end && table[buffer.get(i) & 0xff]) {
+            i++;
+        }
+        return i - start;
+    }
+
+    private static void copy(Input.Chunk read, int n, byte[] out, int offset) {
+        if (read.hasArray()) {
+            System.arraycopy(read.volatileBytes(), read.start(), out, offset, n);
+        } else {
+            ByteBuffer buffer = read.buffer();
+            buffer.get(out, offset, n);
+        }
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return nonEmpty
+                ? FirstSet.matching(table)
+                : FirstSet.ALL;
+    }
+
+    public String toString() {
+        return (nonEmpty ? "takeWhile1(" : "takeWhile(") + predicate + ")";
+    }
+}
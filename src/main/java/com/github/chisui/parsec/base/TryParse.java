@@ -2,6 +2,9 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
 import io.vavr.control.Either;
 import lombok.NonNull;
 import lombok.Value;
@@ -9,21 +12,24 @@ import lombok.Value;
 import java.io.IOException;
 import java.util.function.Consumer;
 
-import static io.vavr.API.Right;
-
 @Value
-public class TryParse<E, L, R> implements Parser<E, Either<L, R>> {
+public class TryParse<E, L, R> implements ResultParser<E, Either<L, R>> {
     @NonNull Parser<L, R> p;
 
     @Override
-    public Either<E, Either<L, R>> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
-        return in.withMarker(marker -> {
-            Either<L, R> res = p.parse(in, trace);
-            if (res.isLeft()) {
+    public boolean parseInto(Input in, Result<E, Either<L, R>> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        Result<L, R> res = out.retype();
+        try (Input.Marker marker = in.mark()) {
+            if (!p.parseInto(in, res, trace) && !marker.isCut()) {
                 marker.rewind();
             }
-            return Right(res);
-        });
+        }
+        return out.succeed(res.toEither());
+    }
+
+    @Override
+    public Parser<E, Either<L, R>> mapChildren(@NonNull Rewrite f) {
+        return new TryParse<>(f.apply(p));
     }
 }
@@ -0,0 +1,41 @@
+package com.github.chisui.parsec.base;
+
+import com.github.chisui.parsec.ByteParser;
+import com.github.chisui.parsec.Input;
+import com.github.chisui.parsec.Parser;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.Rewrite;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * A boxed {@link Byte} parser seen as a {@link ByteParser}, see {@link ByteParser#of(Parser)}.
+ */
+@Value
+public class UnboxedByte<E> implements ByteParser<E> {
+    @NonNull Parser<E, Byte> p;
+
+    @Override
+    public boolean parseByte(Input in, Result<E, ?> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Result<E, Byte> res = out.retype();
+        return p.parseInto(in, res, trace)
+                && out.succeedByte(res.get());
+    }
+
+    @Override
+    public FirstSet firstSet() {
+        return p.firstSet();
+    }
+
+    @Override
+    public Parser<E, Byte> mapChildren(@NonNull Rewrite f) {
+        return new UnboxedByte<>(f.apply(p));
+    }
+
+    public String toString() {
+        return p.toString();
+    }
+}
@@ -2,37 +2,67 @@ package com.github.chisui.parsec.base;
 
 import com.github.chisui.parsec.Input;
 import com.github.chisui.parsec.Parser;
-import io.vavr.control.Either;
+import com.github.chisui.parsec.Result;
+import com.github.chisui.parsec.ResultParser;
+import com.github.chisui.parsec.Rewrite;
+import com.github.chisui.parsec.UnboxedCollector;
 import lombok.NonNull;
 import lombok.Value;
 
 import java.io.IOException;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collector;
 
-import static io.vavr.API.Right;
-
 @Value
-public class ZeroOrMore<X, E, A, R, S> implements Parser<X, S> {
+public class ZeroOrMore<X, E, A, R, S> implements ResultParser<X, S> {
     @NonNull Parser<E, R> p;
     @NonNull Collector<R, A, S> col;
 
     @Override
-    public Either<X, S> parse(Input in, Consumer<? super Parser<?, ?>> trace) throws IOException {
-        trace.accept(this);
-        A out = col.supplier().get();
+    public boolean parseInto(Input in, Result<X, S> out, Consumer<? super Parser<?, ?>> trace) throws IOException {
+        Parser.traced(trace, this);
+        A acc = col.supplier().get();
+        BiConsumer<A, R> accum = col.accumulator();
+        Result<E, R> res = out.retype();
         while (true) {
             try (Input.Marker m = in.mark()) {
-                Either<E, R> res = p.parse(in, trace);
-                if (res.isLeft()) {
+                if (!accumulate(col, accum, p, in, res, acc, trace)) {
+                    if (m.isCut()) {
+                        return false;
+                    }
                     m.rewind();
                     break;
-                } else {
-                    col.accumulator().accept(out, res.get());
                 }
             }
         }
-        return Right(col.finisher().apply(out));
+        return out.succeed(col.finisher().apply(acc));
+    }
+
+    /**
+     * Parse {@code p} once and add its result to {@code acc}, letting an {@link UnboxedCollector} do both.
+     */
+    static <E, R, A> boolean accumulate(
+            Collector<R, A, ?> col,
+            BiConsumer<A, R> accum,
+            Parser<E, R> p,
+            Input in,
+            Result<E, R> res,
+            A acc,
+            Consumer<? super Parser<?, ?>> trace) throws IOException {
+        if (col instanceof UnboxedCollector) {
+            return ((UnboxedCollector<R, A, ?>) col).accumulate(p, in, res, acc, trace);
+        }
+        if (!p.parseInto(in, res, trace)) {
+            return false;
+        }
+        accum.accept(acc, res.get());
+        return true;
+    }
+
+    @Override
+    public Parser<X, S> mapChildren(@NonNull Rewrite f) {
+        return new ZeroOrMore<>(f.apply(p), col);
     }
 
     public String toString() {
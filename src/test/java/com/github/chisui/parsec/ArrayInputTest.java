@@ -2,9 +2,12 @@ package com.github.chisui.parsec;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.EOFException;
 import java.io.IOException;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ArrayInputTest {
 
@@ -39,4 +42,43 @@ class ArrayInputTest {
 
         assertThat(in.read(2).copy()).asString().isEqualTo("sd");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPosition() throws IOException {
+        ArrayInput in = ArrayInput.of("asdf");
+        in.read(1);
+        Input.Marker mark = in.mark();
+        in.read(2);
+
+        assertThat(in.position()).isEqualTo(3);
+
+        mark.rewind();
+
+        assertThat(in.position()).isEqualTo(1);
+    }
+
+    @Test
+    void testSkip() throws IOException {
+        ArrayInput in = ArrayInput.of("asdf");
+
+        in.skip(3);
+
+        assertThat(in.read(1).copy()).asString().isEqualTo("f");
+        assertThatThrownBy(() -> in.skip(1)).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void testSliceIsViewOfArray() throws IOException {
+        byte[] bytes = "asdf".getBytes(UTF_8);
+        ArrayInput in = ArrayInput.of(bytes);
+        in.read(1);
+        Input.Marker mark = in.mark();
+        in.read(2);
+
+        ByteSlice slice = in.slice(mark, 2);
+        bytes[1] = 'x';
+
+        assertThat(slice.decode(UTF_8)).isEqualTo("xd");
+        assertThat(in.position()).isEqualTo(3);
+    }
+}
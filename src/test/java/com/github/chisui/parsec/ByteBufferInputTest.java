@@ -0,0 +1,102 @@
+package com.github.chisui.parsec;
+
+import io.vavr.Tuple0;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static com.github.chisui.parsec.Parser.*;
+import static io.vavr.API.Left;
+import static io.vavr.API.Right;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ByteBufferInputTest {
+
+    @Test
+    void testHeapBufferExposesArray() {
+        ByteBuffer buf = ByteBuffer.wrap("xasdf".getBytes(UTF_8));
+        buf.position(1);
+        ByteBufferInput in = ByteBufferInput.of(buf.slice());
+
+        Input.Chunk read = in.read(2);
+
+        assertThat(read.hasArray()).isTrue();
+        assertThat(read.volatileBytes()).isSameAs(buf.array());
+        assertThat(read.copy()).asString().isEqualTo("as");
+    }
+
+    @Test
+    void testDirectBufferReadsWithoutArray() {
+        ByteBufferInput in = ByteBufferInput.of(direct("asdfg"));
+
+        Input.Chunk read = in.read(2);
+        assertThat(read.hasArray()).isFalse();
+        assertThat(read.buffer().remaining()).isEqualTo(2);
+        assertThat(read.byteAt(1)).isEqualTo((byte) 's');
+        assertThat(read.copy()).asString().isEqualTo("as");
+
+        assertThat(in.read(2).copy()).asString().isEqualTo("df");
+        Input.Chunk last = in.read(2);
+        assertThat(last.copy()).asString().isEqualTo("g");
+        assertThat(last.isTail()).isTrue();
+    }
+
+    @Test
+    void testMarkerRewind() throws IOException {
+        ByteBufferInput in = ByteBufferInput.of(direct("asdf"));
+        in.read(1);
+
+        Input.Marker mark = in.mark();
+        in.read(2);
+        mark.rewind();
+
+        assertThat(in.read(2).copy()).asString().isEqualTo("sd");
+    }
+
+    @Test
+    void testDoesNotModifyGivenBuffer() {
+        ByteBuffer buf = direct("asdf");
+
+        ByteBufferInput.of(buf).read(3).buffer().get();
+
+        assertThat(buf.position()).isZero();
+        assertThat(buf.limit()).isEqualTo(4);
+    }
+
+    @Test
+    void testParseDirectBuffer() throws IOException {
+        ByteBufferInput in = ByteBufferInput.of(direct("äbc"));
+
+        assertThat(character(UTF_8).parse(in)).isEqualTo(Right('ä'));
+        assertThat(expect("bd").parse(in)).isEqualTo(Left(1));
+    }
+
+    @Test
+    void testAnyByteDirectBuffer() throws IOException {
+        ByteBufferInput in = ByteBufferInput.of(direct("a"));
+
+        Either<Tuple0, Byte> res = anyByte().parse(in);
+
+        assertThat(res).isEqualTo(Right((byte) 'a'));
+        assertThat(anyByte().parse(in).isLeft()).isTrue();
+    }
+
+    @Test
+    void testTakeWhileOnDirectBuffer() throws IOException {
+        ByteBufferInput in = ByteBufferInput.of(direct("abc123"));
+
+        assertThat(takeWhile(BytePredicate.letter()).parse(in).get()).asString().isEqualTo("abc");
+        assertThat(in.read(3).copy()).asString().isEqualTo("123");
+    }
+
+    private static ByteBuffer direct(String content) {
+        byte[] bytes = content.getBytes(UTF_8);
+        ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+        buf.put(bytes);
+        buf.flip();
+        return buf;
+    }
+}
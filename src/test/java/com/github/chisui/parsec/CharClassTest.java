@@ -0,0 +1,54 @@
+package com.github.chisui.parsec;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CharClassTest {
+
+    @Test
+    void testRangesAndUnion() {
+        CharClass cls = CharClass.range('a', 'f').union(CharClass.anyOf("x_€")).union(CharClass.range('d', 'k'));
+
+        assertMembers(cls, c -> c >= 'a' && c <= 'k' || c == 'x' || c == '_' || c == '€');
+        assertThat(cls).isEqualTo(CharClass.range('a', 'k').union(CharClass.of('_', 'x', '€')));
+    }
+
+    @Test
+    void testNegateAndIntersect() {
+        CharClass letters = CharClass.letter();
+        CharClass notAscii = CharClass.range(0, 127).negate();
+
+        assertMembers(letters.negate(), c -> !Character.isLetter(c));
+        assertMembers(letters.intersect(notAscii), c -> c > 127 && Character.isLetter(c));
+        assertMembers(letters.minus(CharClass.category("Lu")),
+                c -> Character.isLetter(c) && Character.getType(c) != Character.UPPERCASE_LETTER);
+        assertThat(CharClass.any().negate().isEmpty()).isTrue();
+        assertThat(CharClass.none().negate()).isEqualTo(CharClass.any());
+    }
+
+    @Test
+    void testCategories() {
+        assertMembers(CharClass.digit(), Character::isDigit);
+        assertMembers(CharClass.category("Sc"), c -> Character.getType(c) == Character.CURRENCY_SYMBOL);
+        assertMembers(CharClass.whitespace(), Character::isWhitespace);
+        assertThatThrownBy(() -> CharClass.category("Xx")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testToString() {
+        assertThat(CharClass.range('a', 'z').union(CharClass.of('-'))).hasToString("([a-z]|[\\u{2d}])");
+        assertThat(CharClass.category("Lu").negate()).hasToString("!\\p{Lu}");
+    }
+
+    private static void assertMembers(CharClass cls, IntPredicate expected) {
+        for (int c = 0; c <= Character.MAX_CODE_POINT; c++) {
+            if (cls.contains(c) != expected.test(c)) {
+                assertThat(cls.contains(c)).as("%s contains U+%04X", cls, c).isEqualTo(expected.test(c));
+            }
+        }
+    }
+}
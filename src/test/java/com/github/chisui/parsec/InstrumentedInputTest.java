@@ -0,0 +1,132 @@
+package com.github.chisui.parsec;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstrumentedInputTest {
+
+    @Test
+    void testCountsMarksAndRewinds() throws IOException {
+        InstrumentedInput in = InstrumentedInput.of(ArrayInput.of("abcd"));
+
+        try (Input.Marker outer = in.mark()) {
+            in.read(1);
+            try (Input.Marker inner = in.mark()) {
+                in.read(2);
+                inner.rewind();
+            }
+            in.read(3);
+        }
+
+        InputMetrics metrics = in.metrics();
+        assertThat(metrics.getMarksCreated()).isEqualTo(2);
+        assertThat(metrics.getMarksClosed()).isEqualTo(2);
+        assertThat(metrics.getLiveMarkers()).isZero();
+        assertThat(metrics.getPeakLiveMarkers()).isEqualTo(2);
+        assertThat(metrics.getRewinds()).isEqualTo(1);
+        assertThat(metrics.getBytesReread()).isEqualTo(2);
+        assertThat(metrics.getPeakBufferedBytes()).isEqualTo(4);
+        assertThat(metrics.getSourceReads()).isEqualTo(3);
+        assertThat(metrics.getSourceBytes()).isEqualTo(6);
+        assertThat(metrics.getAverageBytesPerSourceRead()).isEqualTo(2.0);
+    }
+
+    @Test
+    void testMeasuresWithoutPositionOfWrappedInput() throws IOException {
+        ArrayInput bytes = ArrayInput.of("abcdef");
+        InstrumentedInput in = InstrumentedInput.of(new Input() {
+            @Override
+            public Marker mark() {
+                return bytes.mark();
+            }
+
+            @Override
+            public long position() {
+                throw new AssertionError("position is tracked by the decorator");
+            }
+
+            @Override
+            public Chunk read(int size) {
+                return bytes.read(size);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        Input.Marker first = in.mark();
+        in.read(2);
+        Input.Marker second = in.mark();
+        in.read(2);
+        first.close();
+        in.read(1);
+        second.rewind();
+        second.close();
+        in.read(1);
+
+        InputMetrics metrics = in.metrics();
+        assertThat(metrics.getBytesReread()).isEqualTo(3);
+        assertThat(metrics.getPeakBufferedBytes()).isEqualTo(4);
+        assertThat(metrics.getLiveMarkers()).isZero();
+    }
+
+    @Test
+    void testBacktrackingParse() throws IOException {
+        InstrumentedInput in = InstrumentedInput.of(ArrayInput.of("abcabd"));
+
+        Parser<Object, String> p = or(expect("abc"), expect("abd"));
+        p.parse(in);
+        p.parse(in);
+
+        assertThat(in.metrics().getRewinds()).isGreaterThanOrEqualTo(1);
+        assertThat(in.metrics().getBytesReread()).isGreaterThanOrEqualTo(3);
+        assertThat(in.metrics().getLiveMarkers()).isZero();
+    }
+
+    @Test
+    void testStreamInputMetrics() throws IOException {
+        StreamInput in = StreamInput.of(new ByteArrayInputStream("abcdefgh".getBytes(UTF_8)), 1, 4, 4);
+
+        Input.Marker m = in.mark();
+        in.read(4);
+        in.read(4);
+        m.rewind();
+        m.close();
+        in.read(8);
+        in.read(8);
+
+        InputMetrics metrics = in.metrics();
+        assertThat(metrics.getMarksCreated()).isEqualTo(1);
+        assertThat(metrics.getMarksClosed()).isEqualTo(1);
+        assertThat(metrics.getRewinds()).isEqualTo(1);
+        assertThat(metrics.getBytesReread()).isEqualTo(8);
+        assertThat(metrics.getPeakBufferedBytes()).isEqualTo(8);
+        assertThat(metrics.getSourceBytes()).isEqualTo(8);
+        assertThat(metrics.getSourceReads()).isEqualTo(3);
+    }
+
+    @Test
+    void testRegisterMBean() throws Exception {
+        InstrumentedInput in = InstrumentedInput.of(ArrayInput.of("ab"));
+        in.mark().rewind();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName name = InputMetrics.register(in.metrics(), "com.github.chisui.parsec:type=Input,name=test");
+        try {
+            assertThat(server.getAttribute(name, "Rewinds")).isEqualTo(1L);
+            assertThat(server.getAttribute(name, "LiveMarkers")).isEqualTo(1L);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
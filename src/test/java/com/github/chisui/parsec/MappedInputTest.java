@@ -0,0 +1,128 @@
+package com.github.chisui.parsec;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.github.chisui.parsec.Parser.*;
+import static io.vavr.API.Left;
+import static io.vavr.API.List;
+import static io.vavr.API.Right;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedInputTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReadMovesPointer() throws IOException {
+        try (MappedInput in = MappedInput.of(file("asdfg"))) {
+            assertThat(in.read(2).copy()).asString().isEqualTo("as");
+            assertThat(in.read(2).copy()).asString().isEqualTo("df");
+
+            Input.Chunk last = in.read(2);
+            assertThat(last.copy()).asString().isEqualTo("g");
+            assertThat(last.isTail()).isTrue();
+        }
+    }
+
+    @Test
+    void testRewindBehindCutFails() throws IOException {
+        try (MappedInput in = MappedInput.of(file("abd"))) {
+            Input.Marker start = in.mark();
+
+            assertThat(or(commit(expect("ab")).then(expect("c")), expect("abd")).parse(in)).isEqualTo(Left(0));
+            assertThatThrownBy(start::rewind)
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Can not rewind to position 0 before cut at 2");
+        }
+    }
+
+    @Test
+    void testChunkIsViewOfMapping() throws IOException {
+        try (MappedInput in = MappedInput.of(file("asdf"))) {
+            Input.Chunk read = in.read(3);
+
+            assertThat(read.hasArray()).isFalse();
+            assertThat(read.buffer().isDirect()).isTrue();
+            assertThat(read.buffer().remaining()).isEqualTo(3);
+            assertThat(read.byteAt(2)).isEqualTo((byte) 'd');
+        }
+    }
+
+    @Test
+    void testReadStopsAtSegmentBoundary() throws IOException {
+        try (MappedInput in = MappedInput.of(file("asdfgh"), 4)) {
+            assertThat(in.read(3).copy()).asString().isEqualTo("asd");
+            assertThat(in.read(3).copy()).asString().isEqualTo("f");
+            assertThat(in.read(3).copy()).asString().isEqualTo("gh");
+        }
+    }
+
+    @Test
+    void testMarkerRewindAcrossSegments() throws IOException {
+        try (MappedInput in = MappedInput.of(file("asdfghjkl"), 2)) {
+            in.read(1);
+            Input.Marker mark = in.mark();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < 4; i++) {
+                out.write(in.read(2).copy());
+            }
+            assertThat(out.toByteArray()).asString().isEqualTo("sdfghjk");
+
+            mark.rewind();
+
+            assertThat(in.read(2).copy()).asString().isEqualTo("s");
+            assertThat(in.read(2).copy()).asString().isEqualTo("df");
+        }
+    }
+
+    @Test
+    void testParse() throws IOException {
+        try (MappedInput in = MappedInput.of(file("a,b,c"), 2)) {
+            Parser<Integer, List<String>> p = expect("a")
+                    .then(zeroOrMore(expect(",").then(or(expect("b"), expect("c")))), (a, as) -> as.prepend(a));
+
+            Either<Integer, List<String>> res = p.parse(in);
+
+            assertThat(res).isEqualTo(Right(List("a", "b", "c")));
+        }
+    }
+
+    @Test
+    void testSegmentSizeIsValidatedBeforeOpening() {
+        assertThatThrownBy(() -> MappedInput.of(dir.resolve("missing"), 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected segmentSize to be positive but got 0");
+    }
+
+    private Path file(String content) throws IOException {
+        return Files.write(dir.resolve("input"), content.getBytes(UTF_8));
+    }
+
+    @Test
+    void testSliceIsViewWithinSegment() throws IOException {
+        try (MappedInput in = MappedInput.of(file("asdfgh"), 4)) {
+            Parser<Integer, ByteSlice> p = capture(expect("as").then(expect("d")));
+            Parser<Integer, ByteSlice> q = capture(expect("fgh"));
+
+            ByteSlice within = p.parse(in).get();
+            ByteSlice across = q.parse(in).get();
+
+            assertThat(within.decode(UTF_8)).isEqualTo("asd");
+            assertThat(within.buffer().isDirect()).isTrue();
+            assertThat(across.decode(UTF_8)).isEqualTo("fgh");
+            assertThat(across.buffer().isDirect()).isFalse();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.chisui.parsec;
+
+import io.vavr.Tuple0;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.github.chisui.parsec.Parser.*;
+import static com.github.chisui.parsec.base.NamedFunction.named;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelParserTest {
+
+    private static final Parser<Tuple0, Integer> NUMBER = takeWhile1(BytePredicate.digit())
+            .map(named("toInt", (byte[] b) -> Integer.parseInt(new String(b, UTF_8))))
+            .followedBy(ignoreErrorDetails(expect("\n")));
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Test
+    void testStreamKeepsInputOrder() {
+        ParallelParser<Tuple0, Integer> parser = ParallelParser.of(NUMBER, (byte) '\n', 64, pool);
+
+        List<Integer> numbers = parser.stream(ParallelParser.Source.of(numbers(10_000)))
+                .collect(Collectors.toList());
+
+        assertThat(numbers).containsExactlyElementsOf(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void testCollect() {
+        ParallelParser<Tuple0, Integer> parser = ParallelParser.of(NUMBER, (byte) '\n', 64, pool);
+
+        assertThat(parser.collect(ParallelParser.Source.of(numbers(10_000)), Collectors.summingLong(i -> i)))
+                .isEqualTo(10_000L * 9_999 / 2);
+    }
+
+    @Test
+    void testFailuresAreReportedPerShard() {
+        ParallelParser<Tuple0, Integer> parser = ParallelParser.of(NUMBER, (byte) '\n', 8, pool);
+        byte[] input = "1234\n5678\n12x4\n3456\n".getBytes(UTF_8);
+
+        List<ParallelParser.Shard<Integer>> shards = parser.shards(ParallelParser.Source.of(input));
+
+        assertThat(shards).extracting(ParallelParser.Shard::start).containsExactly(0L, 10L);
+        assertThat(shards.get(0).records()).containsExactly(1234, 5678);
+        assertThat(shards.get(0).failure().isEmpty()).isTrue();
+        assertThat(shards.get(1).records()).isEmpty();
+        assertThat(shards.get(1).failure().get().position()).isEqualTo(10L);
+        assertThatThrownBy(() -> parser.stream(ParallelParser.Source.of(input)).count())
+                .isInstanceOfSatisfying(ParseFailure.class, e -> {
+                    assertThat(e.position()).isEqualTo(10L);
+                    assertThat(e.record()).isEqualTo(2L);
+                });
+    }
+
+    @Test
+    void testFailureAfterRecordsOfTheSameShard() {
+        ParallelParser<Tuple0, Integer> parser = ParallelParser.of(NUMBER, (byte) '\n', 8, pool);
+        byte[] input = "1234\n5678\n3456\n12x4\n".getBytes(UTF_8);
+
+        List<ParallelParser.Shard<Integer>> shards = parser.shards(ParallelParser.Source.of(input));
+
+        assertThat(shards).extracting(ParallelParser.Shard::start).containsExactly(0L, 10L);
+        assertThat(shards.get(1).records()).containsExactly(3456);
+        assertThat(shards.get(1).failure().get().record()).isEqualTo(1L);
+        assertThatThrownBy(() -> parser.stream(ParallelParser.Source.of(input)).count())
+                .isInstanceOfSatisfying(ParseFailure.class, e -> {
+                    assertThat(e.position()).isEqualTo(15L);
+                    assertThat(e.record()).isEqualTo(3L);
+                });
+    }
+
+    @Test
+    void testFileSource(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("numbers.txt");
+        Files.write(file, numbers(1_000));
+        ParallelParser<Tuple0, Integer> parser = ParallelParser.of(NUMBER, (byte) '\n', 100, pool);
+
+        try (ParallelParser.Source source = ParallelParser.Source.of(file)) {
+            assertThat(parser.stream(source).count()).isEqualTo(1_000L);
+        }
+    }
+
+    private static byte[] numbers(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> i + "\n")
+                .collect(Collectors.joining())
+                .getBytes(UTF_8);
+    }
+}
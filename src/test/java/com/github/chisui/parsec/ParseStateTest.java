@@ -0,0 +1,128 @@
+package com.github.chisui.parsec;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.chisui.parsec.Parser.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.counting;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParseStateTest {
+
+    @Test
+    void testFragmentedExpect() throws IOException {
+        ParseState<Integer, String> state = expect("hello").start();
+
+        assertThat(state.feed(bytes("he")).isPartial()).isTrue();
+        assertThat(state.feed(bytes("l")).isPartial()).isTrue();
+        ParseState.Step<Integer, String> step = state.feed(bytes("lo world"));
+
+        assertThat(step).isInstanceOf(ParseState.Done.class);
+        ParseState.Done<Integer, String> done = (ParseState.Done<Integer, String>) step;
+        assertThat(done.value()).isEqualTo("hello");
+        assertThat(UTF_8.decode(done.remaining()).toString()).isEqualTo(" world");
+    }
+
+    @Test
+    void testFailsAsSoonAsInputMismatches() throws IOException {
+        ParseState<Integer, String> state = expect("hello").start();
+
+        ParseState.Step<Integer, String> step = state.feed(bytes("hex"));
+
+        assertThat(step).isEqualTo(new ParseState.Failed<>(2, 3));
+        assertThatThrownBy(() -> state.feed(bytes("llo"))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void testRepetitionNeedsEndOfInput() throws IOException {
+        ParseState<Object, List<byte[]>> state = zeroOrMore(expect("ab".getBytes(UTF_8))).start();
+
+        assertThat(state.feed(bytes("aba")).isPartial()).isTrue();
+        assertThat(state.feed(bytes("b")).isPartial()).isTrue();
+        ParseState.Step<Object, List<byte[]>> step = state.endOfInput();
+
+        assertThat(((ParseState.Done<Object, List<byte[]>>) step).value()).hasSize(2);
+        assertThat(state.endOfInput()).isSameAs(step);
+    }
+
+    @Test
+    void testEndOfInputInTheMiddle() throws IOException {
+        ParseState<Tuple0, Tuple0> state = ignoreErrorDetails(expect("ab")).then(eof()).start();
+
+        assertThat(state.feed(bytes("a")).isPartial()).isTrue();
+        assertThat(state.endOfInput()).isInstanceOf(ParseState.Failed.class);
+    }
+
+    @Test
+    void testEofWaitsForEndOfInput() throws IOException {
+        ParseState<Tuple0, Tuple0> state = ignoreErrorDetails(expect("ab")).then(eof()).start();
+
+        assertThat(state.feed(bytes("ab")).isPartial()).isTrue();
+        assertThat(state.endOfInput()).isInstanceOf(ParseState.Done.class);
+    }
+
+    @Test
+    void testFunctionsAreAppliedOnceAcrossFeeds() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ParseState<Object, Long> state = zeroOrMore(expect("ab").map(s -> calls.incrementAndGet()), counting())
+                .start();
+
+        for (byte b : "abababab".getBytes(UTF_8)) {
+            assertThat(state.feed(new byte[] {b}).isPartial()).isTrue();
+        }
+        ParseState.Step<Object, Long> step = state.endOfInput();
+
+        assertThat(((ParseState.Done<Object, Long>) step).value()).isEqualTo(4L);
+        assertThat(calls).hasValue(4);
+    }
+
+    @Test
+    void testConsumedBytesAreReleased() throws IOException {
+        ParseState<Object, Long> state = zeroOrMore(expect("abcd"), counting()).start();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(state.feed(bytes("ab")).isPartial()).isTrue();
+            assertThat(state.feed(bytes("cd")).isPartial()).isTrue();
+        }
+
+        assertThat(state.buffered()).isLessThan(1024);
+        assertThat(((ParseState.Done<Object, Long>) state.endOfInput()).value()).isEqualTo(10_000L);
+    }
+
+    @Test
+    void testRestartedParserSeesAllBytes() throws IOException {
+        ParseState<Object, List<String>> state = zeroOrMore(ignoreErrorDetails(capture(expect("key=")))
+                .then(ignoreErrorDetails(decimalLong()), (key, n) -> key.decode(UTF_8) + n)).start();
+
+        assertThat(state.feed(bytes("key=12")).isPartial()).isTrue();
+        assertThat(state.feed(bytes("34key")).isPartial()).isTrue();
+        assertThat(state.feed(bytes("=5")).isPartial()).isTrue();
+        ParseState.Step<Object, List<String>> step = state.endOfInput();
+
+        assertThat(((ParseState.Done<Object, List<String>>) step).value()).containsExactly("key=1234", "key=5");
+    }
+
+    @Test
+    void testFailurePositionIsAbsolute() throws IOException {
+        Parser<Tuple0, Long> pairs = zeroOrMore(expect("ab"), counting());
+        ParseState<Tuple0, Tuple0> state = pairs.then(eof()).start();
+
+        for (int i = 0; i < 1000; i++) {
+            state.feed(bytes("ab"));
+        }
+
+        assertThat(state.feed(bytes("x"))).isEqualTo(new ParseState.Failed<>(Tuple.empty(), 2000L));
+    }
+
+    private static ByteBuffer bytes(String s) {
+        return ByteBuffer.wrap(s.getBytes(UTF_8));
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.chisui.parsec;
+
+import com.github.chisui.parsec.base.Expect;
+import com.github.chisui.parsec.base.FirstMatch;
+import com.github.chisui.parsec.base.Mapped;
+import com.github.chisui.parsec.base.Not;
+import io.vavr.Tuple0;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static com.github.chisui.parsec.Parser.*;
+import static com.github.chisui.parsec.base.NamedFunction.named;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParserOptimizerTest {
+
+    @Test
+    void testMergeExpect() throws IOException {
+        ParserOptimizer optimizer = ParserOptimizer.create();
+        Parser<Integer, String> p = expect("ab").then(expect("c"), String::concat).followedBy(expect("d"));
+
+        Parser<Integer, String> optimized = optimizer.optimize(p);
+
+        assertThat(optimized).isInstanceOf(Mapped.class);
+        assertThat(((Mapped<?, ?, ?, ?>) optimized).p()).isEqualTo(new Expect("abcd".getBytes()));
+        assertThat(optimizer.applied()).extracting(ParserOptimizer.Applied::rule)
+                .containsExactly(ParserOptimizer.Rule.MERGE_EXPECT, ParserOptimizer.Rule.MERGE_EXPECT);
+        assertParsesTheSame(p, optimized, "abcd", "abcde", "xbcd", "axcd", "abxd", "abcx", "ab", "");
+    }
+
+    @Test
+    void testFlattenFirstMatch() throws IOException {
+        Parser<Integer, String> p = or(or(expect("a"), expect("b")), or(expect("c"), expect("d")));
+
+        Parser<Integer, String> optimized = p.optimize();
+
+        assertThat(((FirstMatch<?, ?>) optimized).px()).hasSize(4);
+        assertParsesTheSame(p, optimized, "a", "b", "c", "d", "e", "");
+    }
+
+    @Test
+    void testDoubleNegation() throws IOException {
+        Parser<Integer, String> a = expect("a");
+        Parser<Integer, String> p = new Not<>(new Not<>(a));
+
+        assertThat(p.optimize()).isSameAs(a);
+    }
+
+    @Test
+    void testFuseMapped() throws IOException {
+        Parser<Tuple0, Byte> inner = anyByte();
+        Parser<Tuple0, Integer> p = new Mapped<>(
+                new Mapped<>(inner, named("inc", (Byte b) -> b + 1), named("id1", (Tuple0 t) -> t)),
+                named("double", (Integer i) -> 2 * i),
+                named("id2", (Tuple0 t) -> t));
+
+        Parser<Tuple0, Integer> optimized = p.optimize();
+
+        assertThat(((Mapped<?, ?, ?, ?>) optimized).p()).isSameAs(inner);
+        assertParsesTheSame(p, optimized, "a", "");
+    }
+
+    @Test
+    void testFoldConst() throws IOException {
+        ParserOptimizer optimizer = ParserOptimizer.create();
+        Parser<Integer, String> alternatives = or(error(0), expect("a"), pure("d"), expect("b"));
+        Parser<Integer, String> p = alternatives.then(pure("!"), String::concat);
+
+        Parser<Integer, String> optimized = optimizer.optimize(p);
+
+        assertThat(optimizer.applied()).extracting(ParserOptimizer.Applied::rule)
+                .containsExactly(ParserOptimizer.Rule.FOLD_CONST, ParserOptimizer.Rule.FOLD_CONST);
+        assertThat(((FirstMatch<?, ?>) ((Mapped<?, ?, ?, ?>) optimized).p()).px()).hasSize(2);
+        assertParsesTheSame(p, optimized, "a", "b", "");
+    }
+
+    @Test
+    void testUnchangedParsersAreKept() {
+        Parser<Integer, String> memo = memo(expect("a"));
+        Parser<Integer, String> p = or(memo, expect("b"));
+
+        assertThat(p.optimize()).isSameAs(p);
+        assertThat(ParserOptimizer.create().optimize(memo(or(expect("a"), or(expect("b"), expect("c"))))))
+                .isNotSameAs(memo);
+    }
+
+    @Test
+    void testReport() {
+        ParserOptimizer optimizer = ParserOptimizer.create();
+
+        optimizer.optimize(or(or(expect("a"), expect("b")), expect("c")).then(expect("d")));
+
+        assertThat(optimizer.report()).contains("1  FLATTEN_FIRST_MATCH");
+    }
+
+    private static <E, R> void assertParsesTheSame(Parser<E, R> p, Parser<E, R> optimized, String... inputs)
+            throws IOException {
+        for (String input : inputs) {
+            assertThat(optimized.parse(ArrayInput.of(input))).as(input).isEqualTo(p.parse(ArrayInput.of(input)));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.chisui.parsec;
+
+import io.vavr.Tuple0;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static com.github.chisui.parsec.Parser.*;
+import static io.vavr.API.Right;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParserProfilerTest {
+
+    private final Parser<Integer, byte[]> ab = expect("ab".getBytes(UTF_8));
+    private final Parser<Integer, byte[]> ac = expect("ac".getBytes(UTF_8));
+
+    @Test
+    void testProfiledParserParsesTheSame() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+
+        Either<Object, List<byte[]>> res = profiler.profile(zeroOrMore(or(ab, ac))).parse(ArrayInput.of("acab"));
+
+        assertThat(res.get()).hasSize(2);
+    }
+
+    @Test
+    void testHotSpots() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        Parser<Object, List<byte[]>> p = profiler.profile(zeroOrMore(or(ab, ac)));
+
+        p.parse(ArrayInput.of("acab"));
+
+        ParserProfiler.NodeStats abStats = stats(profiler, ab);
+        assertThat(abStats.invocations()).isEqualTo(2);
+        assertThat(abStats.successes()).isEqualTo(1);
+        assertThat(abStats.failures()).isEqualTo(1);
+        assertThat(abStats.bytesConsumed()).isEqualTo(2 + 2);
+        ParserProfiler.NodeStats acStats = stats(profiler, ac);
+        assertThat(acStats.invocations()).isEqualTo(2);
+        assertThat(acStats.successes()).isEqualTo(1);
+        assertThat(profiler.hotSpots()).isSortedAccordingTo((a, b) -> Long.compare(b.selfNanos(), a.selfNanos()));
+        assertThat(profiler.report()).contains("self ms", ab.toString());
+    }
+
+    @Test
+    void testRewindsAreCountedForTheRewindingParser() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        Parser<Object, byte[]> or = or(ab, ac);
+
+        profiler.profile(or).parse(ArrayInput.of("ac"));
+
+        assertThat(stats(profiler, or).rewinds()).isGreaterThanOrEqualTo(1);
+        assertThat(stats(profiler, or).bytesRewound()).isGreaterThanOrEqualTo(2);
+        assertThat(stats(profiler, ab).rewinds()).isZero();
+    }
+
+    @Test
+    void testCollapsedStacks() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        Parser<Object, byte[]> or = or(ab, ac);
+
+        profiler.profile(or).parse(ArrayInput.of("ac"));
+
+        assertThat(profiler.collapsedStacks().split("\n"))
+                .allMatch(line -> line.matches("[^\\n]+ \\d+"))
+                .anyMatch(line -> line.startsWith(or + ";" + ac + " "));
+    }
+
+    @Test
+    void testFlatMapContinuationsAreProfiled() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        Parser<Integer, byte[]> p = ab.flatMap(bytes -> ac);
+
+        assertThat(profiler.profile(p).parse(ArrayInput.of("abac")).get()).asString().isEqualTo("ac");
+        assertThat(stats(profiler, ac).invocations()).isEqualTo(1);
+    }
+
+    @Test
+    void testFilteredByteChildIsProfiled() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        ByteParser<Tuple0> any = anyByte();
+        Parser<Object, List<Byte>> p = zeroOrMore(any.filterByte(BytePredicate.digit()));
+
+        assertThat(profiler.profile(p).parse(ArrayInput.of("12x"))).isEqualTo(Right(List.of((byte) '1', (byte) '2')));
+        assertThat(stats(profiler, any).invocations()).isEqualTo(3);
+        assertThat(stats(profiler, any).successes()).isEqualTo(3);
+    }
+
+    @Test
+    void testReset() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        profiler.profile(ab).parse(ArrayInput.of("ab"));
+
+        profiler.reset();
+
+        assertThat(profiler.hotSpots()).isEmpty();
+        assertThat(profiler.profile(success("x")).parse(ArrayInput.of(""))).isEqualTo(Right("x"));
+    }
+
+    private static ParserProfiler.NodeStats stats(ParserProfiler profiler, Parser<?, ?> p) {
+        return profiler.hotSpots().stream()
+                .filter(s -> s.label().equals(p.toString()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+    }
+}
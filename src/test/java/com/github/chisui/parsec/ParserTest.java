@@ -1,17 +1,24 @@
 package com.github.chisui.parsec;
 
+import com.github.chisui.parsec.base.FirstSet;
 import io.vavr.Tuple0;
 import io.vavr.collection.List;
 import io.vavr.control.Either;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.function.Supplier;
 
 import static com.github.chisui.parsec.Bytes.asString;
 import static com.github.chisui.parsec.Parser.*;
+import static com.github.chisui.parsec.base.NamedFunction.named;
 import static io.vavr.API.*;
-import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.charset.StandardCharsets.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class ParserTest {
 
@@ -101,6 +108,24 @@ class ParserTest {
         assertThat(res).isEqualTo(Left(1));
     }
 
+    @Test
+    void testExpectMismatchInLaterChunk() throws IOException {
+        Input in = StreamInput.of(new ByteArrayInputStream("asdf".getBytes(UTF_8)), 4, 2, 4);
+
+        Either<Integer, String> res = expect("asdx").parse(in);
+
+        assertThat(res).isEqualTo(Left(3));
+    }
+
+    @Test
+    void testExpectEndOfInput() throws IOException {
+        Input in = ArrayInput.of("as");
+
+        Either<Integer, String> res = expect("asdf").parse(in);
+
+        assertThat(res).isEqualTo(Left(2));
+    }
+
     @Test
     void testTryParse() throws IOException {
         Input in = ArrayInput.of("asdf");
@@ -153,6 +178,53 @@ class ParserTest {
         assertThat(in.read(10).copy()).asString().isEqualTo("-");
     }
 
+    @Test
+    void testCharacterSupplementary() throws IOException {
+        Either<byte[], Character> res = character(UTF_8).parse(ArrayInput.of("\uD83D\uDE00"));
+
+        assertThat(res.getLeft()).isEqualTo("\uD83D\uDE00".getBytes(UTF_8));
+    }
+
+    @Test
+    void testCharacterMalformed() throws IOException {
+        Input in = ArrayInput.of(new byte[]{(byte) 0xc3, 'a'});
+
+        assertThat(character(UTF_8).parse(in).getLeft()).containsExactly(0xc3, 'a');
+        assertThat(character(UTF_8).parse(ArrayInput.of(new byte[]{(byte) 0xe0, (byte) 0x80, (byte) 0x80})).isLeft())
+                .isTrue();
+        assertThat(character(UTF_8).parse(ArrayInput.of(new byte[]{(byte) 0xe2, (byte) 0x82})).getLeft())
+                .containsExactly(0xe2, 0x82);
+        assertThat(character(US_ASCII).parse(ArrayInput.of(new byte[]{(byte) 0xe4})).getLeft())
+                .containsExactly(0xe4);
+        assertThat(character(UTF_8).parse(ArrayInput.of("")).getLeft()).isEmpty();
+    }
+
+    @Test
+    void testCodePoint() throws IOException {
+        Input in = StreamInput.of(new ByteArrayInputStream("a\u20ac\uD83D\uDE00".getBytes(UTF_8)), 1, 1, 8);
+        Parser<byte[], Integer> p = codePoint(UTF_8);
+
+        assertThat(p.parse(in)).isEqualTo(Right((int) 'a'));
+        assertThat(p.parse(in)).isEqualTo(Right(0x20ac));
+        assertThat(p.parse(in)).isEqualTo(Right(0x1f600));
+        assertThat(p.parse(in).isLeft()).isTrue();
+    }
+
+    @Test
+    void testCodePointLatin1() throws IOException {
+        assertThat(codePoint(ISO_8859_1).parse(ArrayInput.of(new byte[]{(byte) 0xe4}))).isEqualTo(Right(0xe4));
+    }
+
+    @Test
+    void testCodePointDecoderFallback() throws IOException {
+        Input in = ArrayInput.of("\u00e4\uD83D\uDE00".getBytes(UTF_16BE));
+
+        assertThat(codePoint(UTF_16BE).parse(in)).isEqualTo(Right(0xe4));
+        assertThat(codePoint(UTF_16BE).parse(in)).isEqualTo(Right(0x1f600));
+        assertThat(character(UTF_16BE).parse(ArrayInput.of("x".getBytes(UTF_16BE)))).isEqualTo(Right('x'));
+        assertThat(codePoint(UTF_16BE).parse(ArrayInput.of(new byte[]{0})).getLeft()).containsExactly(0);
+    }
+
     @Test
     void testOrMatchFirst() throws IOException {
         ArrayInput in = ArrayInput.of("aaa");
@@ -186,4 +258,492 @@ class ParserTest {
 
         assertThat(res).isEqualTo(Left(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testMemoParsesOncePerPosition() throws IOException {
+        int[] calls = {0};
+        Parser<Integer, String> ab = memo((in, trace) -> {
+            calls[0]++;
+            return expect("ab").parse(in, trace);
+        });
+        Parser<Integer, String> p = or(ab.then(expect("x")), ab.then(expect("y")), ab.then(expect("z")));
+
+        Either<Integer, String> res = p.parse(StreamInput.of(new ByteArrayInputStream("abz".getBytes(UTF_8))));
+
+        assertThat(res).isEqualTo(Right("z"));
+        assertThat(calls[0]).isEqualTo(1);
+    }
+
+    @Test
+    void testMemoReplaysFailure() throws IOException {
+        ArrayInput in = ArrayInput.of("ac");
+        Parser<Integer, String> ab = memo(expect("ab"));
+
+        Either<Object, Either<Integer, String>> first = tryParse(ab).parse(in);
+        Either<Integer, String> second = ab.parse(in);
+
+        assertThat(first).isEqualTo(Right(Left(1)));
+        assertThat(second).isEqualTo(Left(1));
+        assertThat(in.position()).isEqualTo(2);
+    }
+
+    @Test
+    void testMemoIsPerInput() throws IOException {
+        Parser<Tuple0, Byte> p = memo(anyByte());
+
+        assertThat(p.parse(ArrayInput.of("a"))).isEqualTo(Right((byte) 'a'));
+        assertThat(p.parse(ArrayInput.of("b"))).isEqualTo(Right((byte) 'b'));
+    }
+
+    @Test
+    void testMemoCapacityIsBounded() throws IOException {
+        assertThat(memo(anyByte(), 3).parse(ArrayInput.of("a"))).isEqualTo(Right((byte) 'a'));
+        assertThatThrownBy(() -> memo(anyByte(), 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> memo(anyByte(), (1 << 30) + 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testOrSkipsAlternativesByFirstByte() throws IOException {
+        java.util.List<Parser<?, ?>> traced = new ArrayList<>();
+        Parser<Integer, byte[]> abc = expect("abc".getBytes(UTF_8));
+        Parser<Integer, byte[]> b = expect("b".getBytes(UTF_8));
+        Parser<Integer, byte[]> c = expect("c".getBytes(UTF_8));
+        Parser<Integer, byte[]> d = expect("d".getBytes(UTF_8));
+
+        Either<Integer, byte[]> res = or(abc, b, c, d).parse(ArrayInput.of("c"), traced::add);
+
+        assertThat(res.get()).containsExactly('c');
+        assertThat(traced).contains(c).doesNotContain(abc, b, d);
+    }
+
+    @Test
+    void testOrKeepsErrorOfLastAlternative() throws IOException {
+        Parser<Integer, String> p = or(expect("ab"), expect("c"), expect("ax"));
+
+        assertThat(p.parse(ArrayInput.of("ay"))).isEqualTo(Left(1));
+        assertThat(p.parse(ArrayInput.of("q"))).isEqualTo(Left(0));
+        assertThat(p.parse(ArrayInput.of(""))).isEqualTo(Left(0));
+    }
+
+    @Test
+    void testOrEof() throws IOException {
+        Parser<Object, Object> p = or(expect("a"), eof());
+
+        assertThat(p.parse(ArrayInput.of("")).isRight()).isTrue();
+        assertThat(p.parse(ArrayInput.of("b")).isRight()).isFalse();
+    }
+
+    @Test
+    void testOneOf() throws IOException {
+        Parser<Integer, String> p = oneOf("GET", "POST", "PUT", "PATCH");
+        Input in = ArrayInput.of("PUT /");
+
+        assertThat(p.parse(in)).isEqualTo(Right("PUT"));
+        assertThat(in.read(2).copy()).asString().isEqualTo(" /");
+    }
+
+    @Test
+    void testOneOfLongestMatch() throws IOException {
+        Parser<Integer, String> p = oneOf("do", "double", "d");
+        Input in = ArrayInput.of("doubles");
+
+        assertThat(p.parse(in)).isEqualTo(Right("double"));
+        assertThat(in.read(1).copy()).asString().isEqualTo("s");
+    }
+
+    @Test
+    void testOneOfFallsBackToShorterLiteral() throws IOException {
+        Parser<Integer, String> p = oneOf("do", "double");
+        Input in = StreamInput.of(new ByteArrayInputStream("doubt".getBytes(UTF_8)), 1, 1, 8);
+
+        assertThat(p.parse(in)).isEqualTo(Right("do"));
+        assertThat(in.read(3).copy()).asString().isEqualTo("ubt");
+    }
+
+    @Test
+    void testOneOfError() throws IOException {
+        Parser<Integer, String> p = oneOf("null", "true", "false");
+
+        assertThat(p.parse(ArrayInput.of("tru"))).isEqualTo(Left(3));
+        assertThat(p.parse(ArrayInput.of("nil"))).isEqualTo(Left(1));
+        assertThat(p.parse(ArrayInput.of(""))).isEqualTo(Left(0));
+    }
+
+    @Test
+    void testOneOfEmptyLiteral() throws IOException {
+        Input in = ArrayInput.of("b");
+
+        assertThat(oneOf("", "a").parse(in)).isEqualTo(Right(""));
+        assertThat(in.read(1).copy()).asString().isEqualTo("b");
+        assertThat(oneOf("", "a").firstSet()).isEqualTo(FirstSet.ALL);
+        assertThat(oneOf("ab", "c").firstSet()).isEqualTo(FirstSet.of((byte) 'a', (byte) 'c'));
+    }
+
+    @Test
+    void testTakeWhile() throws IOException {
+        Input in = ArrayInput.of("1234abc");
+
+        assertThat(takeWhile(BytePredicate.digit()).parse(in).get()).asString().isEqualTo("1234");
+        assertThat(takeWhile(BytePredicate.digit()).parse(in).get()).isEmpty();
+        assertThat(in.read(3).copy()).asString().isEqualTo("abc");
+    }
+
+    @Test
+    void testTakeWhileAcrossChunks() throws IOException {
+        Input in = StreamInput.of(new ByteArrayInputStream("abcdefghij;".getBytes(UTF_8)), 1, 2, 2);
+
+        assertThat(takeWhile(BytePredicate.letter()).parse(in).get()).asString().isEqualTo("abcdefghij");
+        assertThat(in.read(1).copy()).asString().isEqualTo(";");
+    }
+
+    @Test
+    void testTakeWhile1() throws IOException {
+        Parser<Tuple0, byte[]> p = takeWhile1(BytePredicate.digit());
+
+        assertThat(p.parse(ArrayInput.of("42")).get()).asString().isEqualTo("42");
+        assertThat(p.parse(ArrayInput.of("x"))).isEqualTo(Left(Tuple()));
+        assertThat(p.parse(ArrayInput.of(""))).isEqualTo(Left(Tuple()));
+        assertThat(p.firstSet()).isEqualTo(FirstSet.range('0', '9'));
+    }
+
+    @Test
+    void testSkipWhile() throws IOException {
+        Input in = StreamInput.of(new ByteArrayInputStream(" \t\n x".getBytes(UTF_8)), 1, 2, 2);
+
+        assertThat(skipWhile(BytePredicate.whitespace()).parse(in)).isEqualTo(Right(Tuple()));
+        assertThat(in.read(1).copy()).asString().isEqualTo("x");
+    }
+
+    @Test
+    void testParseInto() throws IOException {
+        Result<Integer, String> out = new Result<>();
+        Parser<Integer, String> p = expect("ab").map(s -> s + "!");
+
+        assertThat(p.parseInto(ArrayInput.of("ab"), out, any -> {})).isTrue();
+        assertThat(out.get()).isEqualTo("ab!");
+        assertThat(p.parseInto(ArrayInput.of("ax"), out, any -> {})).isFalse();
+        assertThat(out.getError()).isEqualTo(1);
+        assertThat(out.toEither()).isEqualTo(Left(1));
+    }
+
+    @Test
+    void testParseIntoAdaptsEitherParsers() throws IOException {
+        Parser<String, String> custom = (in, trace) -> in.read(1).size() == 1 ? Right("byte") : Left("none");
+        Parser<String, List<String>> p = oneOrMore(custom);
+
+        assertThat(p.parse(ArrayInput.of("ab"))).isEqualTo(Right(List("byte", "byte")));
+        assertThat(p.parse(ArrayInput.of(""))).isEqualTo(Left("none"));
+    }
+
+    @Test
+    void testDecimalInt() throws IOException {
+        assertThat(decimalInt().parse(ArrayInput.of("123"))).isEqualTo(Right(123));
+        assertThat(decimalInt().parse(ArrayInput.of("-2147483648"))).isEqualTo(Right(Integer.MIN_VALUE));
+        assertThat(decimalInt().parse(ArrayInput.of("+2147483647"))).isEqualTo(Right(Integer.MAX_VALUE));
+        assertThat(decimalInt().parse(ArrayInput.of("2147483648"))).isEqualTo(Left(NumberError.OVERFLOW));
+        assertThat(decimalInt().parse(ArrayInput.of("-x"))).isEqualTo(Left(NumberError.NO_DIGITS));
+        ArrayInput in = ArrayInput.of("007,8");
+        assertThat(decimalInt().parse(in)).isEqualTo(Right(7));
+        assertThat(in.position()).isEqualTo(3);
+    }
+
+    @Test
+    void testDecimalLongAcrossChunks() throws IOException {
+        Parser<NumberError, List<Long>> numbers = oneOrMore(decimalLong().followedBy(tryParse(expect(","))));
+        String input = Long.MIN_VALUE + "," + Long.MAX_VALUE + ",0,-1,1234567890123";
+
+        assertThat(numbers.parse(StreamInput.of(new ByteArrayInputStream(input.getBytes(UTF_8)), 3, 3, 64)))
+                .isEqualTo(Right(List(Long.MIN_VALUE, Long.MAX_VALUE, 0L, -1L, 1234567890123L)));
+        assertThat(decimalLong().parse(ArrayInput.of("9223372036854775808"))).isEqualTo(Left(NumberError.OVERFLOW));
+    }
+
+    @Test
+    void testHexLong() throws IOException {
+        assertThat(hexLong().parse(ArrayInput.of("ff"))).isEqualTo(Right(255L));
+        assertThat(hexLong().parse(ArrayInput.of("DeadBeef"))).isEqualTo(Right(0xdeadbeefL));
+        assertThat(hexLong().parse(ArrayInput.of("0000ffffffffffffffff"))).isEqualTo(Right(-1L));
+        assertThat(hexLong().parse(ArrayInput.of("1ffffffffffffffff"))).isEqualTo(Left(NumberError.OVERFLOW));
+        assertThat(hexLong().parse(ArrayInput.of("-1"))).isEqualTo(Left(NumberError.NO_DIGITS));
+    }
+
+    @Test
+    void testDecimalDouble() throws IOException {
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                continue;
+            }
+            assertDecimalDouble(Double.toString(d));
+            assertDecimalDouble(Long.toString(random.nextLong() % 100_000_000) + "." + Math.abs(random.nextInt() % 1000));
+            assertDecimalDouble(random.nextInt(1000) + "e" + (random.nextInt(50) - 25));
+        }
+        for (String s : new String[] {"0", "-0", "0.000", "1e22", "1e23", "9007199254740993", "123456789012345678901234567890",
+                "0.1", "2.2250738585072011e-308", "4.9e-324", "1.7976931348623157e308", "1e400", "1e-400",
+                "9999999999999999999", "9223372036854775808", "0.9999999999999999999", "-1844674407370955161.5",
+                "99999999999999999999", "18446744073709551616", "12345678901234567890e-5"}) {
+            assertDecimalDouble(s);
+        }
+    }
+
+    @Test
+    void testDecimalDoubleSyntax() throws IOException {
+        ArrayInput in = ArrayInput.of("1.e5");
+        assertThat(decimalDouble().parse(in)).isEqualTo(Right(1.0));
+        assertThat(in.position()).isEqualTo(1);
+        in = ArrayInput.of("2e+x");
+        assertThat(decimalDouble().parse(in)).isEqualTo(Right(2.0));
+        assertThat(in.position()).isEqualTo(1);
+        assertThat(decimalDouble().parse(ArrayInput.of(".5"))).isEqualTo(Left(NumberError.NO_DIGITS));
+        assertThat(decimalDouble().parse(StreamInput.of(new ByteArrayInputStream("-12.5e-1".getBytes(UTF_8)), 2, 2, 64)))
+                .isEqualTo(Right(-1.25));
+    }
+
+    @Test
+    void testPrimitiveResultIsNotBoxed() throws IOException {
+        Result<NumberError, Integer> out = new Result<>();
+
+        assertThat(decimalInt().parseInt(ArrayInput.of("-42"), out, NO_TRACE)).isTrue();
+        assertThat(out.getInt()).isEqualTo(-42);
+        assertThat(out.get()).isNull();
+        assertThat(decimalInt().parseInto(ArrayInput.of("-42"), out, NO_TRACE)).isTrue();
+        assertThat(out.get()).isEqualTo(-42);
+    }
+
+    @Test
+    void testMapToIntAndFilter() throws IOException {
+        IntParser<Either<Integer, Integer>> p = expect("abc")
+                .mapToInt(String::length)
+                .mapInt(n -> n * 2)
+                .filterInt(n -> n > 4);
+
+        assertThat(p.parse(ArrayInput.of("abc"))).isEqualTo(Right(6));
+        assertThat(p.parse(ArrayInput.of("ab"))).isEqualTo(Left(Left(2)));
+        assertThat(decimalInt().filterInt(n -> n > 0).parse(ArrayInput.of("-1"))).isEqualTo(Left(Right(-1)));
+        assertThat(anyByte().filterByte(BytePredicate.digit()).parse(ArrayInput.of("x"))).isEqualTo(Left(Right((byte) 'x')));
+        assertThat(hexLong().mapLong(v -> -v).parse(ArrayInput.of("ff"))).isEqualTo(Right(-255L));
+    }
+
+    @Test
+    void testBytePredicateOfLatin1Chars() {
+        BytePredicate p = BytePredicate.anyOf("a\u00ff");
+
+        assertThat(p.test((byte) 'a')).isTrue();
+        assertThat(p.test((byte) 0xff)).isTrue();
+        assertThat(p.test((byte) '?')).isFalse();
+        assertThatThrownBy(() -> BytePredicate.anyOf("a\u20ac"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("U+20AC at index 1 is not a single byte");
+    }
+
+    @Test
+    void testFold() throws IOException {
+        IntParser<Object> sum = foldInt(decimalInt().followedBy(tryParse(expect(","))), 0, Integer::sum);
+        ArrayInput in = ArrayInput.of("1,2,-3,40;");
+
+        assertThat(sum.parse(in)).isEqualTo(Right(40));
+        assertThat(in.position()).isEqualTo(9);
+        assertThat(sum.parse(ArrayInput.of(""))).isEqualTo(Right(0));
+        assertThat(foldLong(anyByte().mapToLong(b -> b & 0xff), 0, Long::sum).parse(ArrayInput.of("ab")))
+                .isEqualTo(Right((long) 'a' + 'b'));
+    }
+
+    @Test
+    void testFoldIntProfiled() throws IOException {
+        ParserProfiler profiler = ParserProfiler.create();
+        Parser<Object, Integer> sum = profiler.profile(
+                foldInt(decimalInt().followedBy(tryParse(expect(","))), 0, Integer::sum));
+
+        assertThat(sum.parse(ArrayInput.of("1,2,3"))).isEqualTo(Right(6));
+        assertThat(sum.optimize().parse(ArrayInput.of("1,2,3"))).isEqualTo(Right(6));
+    }
+
+    @Test
+    void testCapture() throws IOException {
+        Parser<NumberError, ByteSlice> p = capture(decimalDouble());
+
+        assertThat(p.parse(ArrayInput.of("-1.5e3,"))).isEqualTo(Right(ByteSlice.of("-1.5e3".getBytes(UTF_8))));
+        assertThat(p.parse(ArrayInput.of("x"))).isEqualTo(Left(NumberError.NO_DIGITS));
+        assertThat(capture(empty()).parse(ArrayInput.of("x"))).isEqualTo(Right(ByteSlice.empty()));
+    }
+
+    @Test
+    void testCollectBytes() throws IOException {
+        byte[] input = new byte[1000];
+        new java.util.Random(7).nextBytes(input);
+
+        assertThat(zeroOrMore(anyByte(), Bytes.bytes()).parse(ArrayInput.of(input)).get()).isEqualTo(input);
+        assertThat(oneOrMore(anyByte(), Bytes.bytes(4)).parse(ArrayInput.of(input)).get()).isEqualTo(input);
+        assertThat(oneOrMore(anyByte(), Bytes.bytes()).parse(ArrayInput.of(""))).isEqualTo(Left(Tuple()));
+        assertThat(zeroOrMore(anyByte().map(b -> (byte) (b + 1)), Bytes.asString(US_ASCII)).parse(ArrayInput.of("HAL")))
+                .isEqualTo(Right("IBM"));
+        assertThat(zeroOrMore(anyByte(), Bytes.slice(0)).parse(ArrayInput.of("ab")))
+                .isEqualTo(Right(ByteSlice.of("ab".getBytes(UTF_8))));
+    }
+
+    @Test
+    void testCollectChars() throws IOException {
+        String text = "aä€😀z";
+
+        assertThat(zeroOrMore(codePoint(UTF_8), Chars.codePoints()).parse(ArrayInput.of(text))).isEqualTo(Right(text));
+        assertThat(zeroOrMore(character(UTF_8), Chars.string(2)).parse(ArrayInput.of(text))).isEqualTo(Right("aä€"));
+        assertThat(oneOrMore(character(UTF_8).map(Character::toUpperCase), Chars.string()).parse(ArrayInput.of("ab")))
+                .isEqualTo(Right("AB"));
+        assertThat(java.util.stream.Stream.of('a', 'b').collect(Chars.string())).isEqualTo("ab");
+    }
+
+    @Test
+    void testCharIn() throws IOException {
+        IntParser<Tuple0> p = charIn(CharClass.letter());
+        ArrayInput in = ArrayInput.of("ä1");
+
+        assertThat(p.parse(in)).isEqualTo(Right((int) 'ä'));
+        assertThat(p.parse(in)).isEqualTo(Left(Tuple()));
+        assertThat(in.position()).isEqualTo(2);
+        assertThat(p.firstSet().contains((byte) 'a')).isTrue();
+        assertThat(p.firstSet().contains((byte) '1')).isFalse();
+        assertThat(p.firstSet().contains((byte) 0xc3)).isTrue();
+    }
+
+    @Test
+    void testCharsWhile() throws IOException {
+        CharClass identifier = CharClass.letter().union(CharClass.digit()).union(CharClass.of('_'));
+        Parser<Tuple0, List<String>> words = zeroOrMore(charsWhile1(identifier)
+                .map(s -> s.decode(UTF_8))
+                .followedBy(charsWhile(CharClass.whitespace())));
+        String text = "größe_1   naïve\tπ𝛑x €";
+
+        for (int chunk = 1; chunk <= 8; chunk++) {
+            Input in = StreamInput.of(new ByteArrayInputStream(text.getBytes(UTF_8)), 2, chunk, 64);
+            assertThat(words.parse(in)).as("chunk size %d", chunk).isEqualTo(Right(List("größe_1", "naïve", "π𝛑x")));
+            assertThat(in.read(8).copy()).asString(UTF_8).isEqualTo("€");
+        }
+        assertThat(words.parse(ByteBufferInput.of(java.nio.ByteBuffer.allocateDirect(64).put(text.getBytes(UTF_8))
+                .flip()))).isEqualTo(Right(List("größe_1", "naïve", "π𝛑x")));
+        assertThat(charsWhile1(identifier).parse(ArrayInput.of(" a"))).isEqualTo(Left(Tuple()));
+        assertThat(charsWhile(identifier).parse(ArrayInput.of(new byte[] {'a', (byte) 0xc3, 'b'})))
+                .isEqualTo(Right(ByteSlice.of(new byte[] {'a'})));
+    }
+
+    private static void assertDecimalDouble(String s) throws IOException {
+        assertThat(decimalDouble().parse(ArrayInput.of(s))).as(s).isEqualTo(Right(Double.parseDouble(s)));
+    }
+
+    @Test
+    void testSequence() throws IOException {
+        Parser<Integer, List<String>> p = sequence(expect("a"), expect("bc"), expect("d"));
+
+        assertThat(p.parse(ArrayInput.of("abcd"))).isEqualTo(Right(List("a", "bc", "d")));
+        assertThat(p.parse(ArrayInput.of("abd"))).isEqualTo(Left(1));
+        assertThat(stackSafe(p).parse(ArrayInput.of("abcd"))).isEqualTo(Right(List("a", "bc", "d")));
+        assertThat(p.firstSet()).isEqualTo(FirstSet.of((byte) 'a'));
+    }
+
+    @Test
+    void testThenDoesNotCreateParsers() throws IOException {
+        Parser<Integer, String> p = expect("a").then(expect("b"), String::concat);
+
+        assertThat(p).isInstanceOf(com.github.chisui.parsec.base.Seq2.class);
+        assertThat(p.parse(ArrayInput.of("ab"))).isEqualTo(Right("ab"));
+        assertThat(p.parse(ArrayInput.of("ax"))).isEqualTo(Left(0));
+        assertThat(expect("a").followedBy(expect("b")).parse(ArrayInput.of("ab"))).isEqualTo(Right("a"));
+        assertThat(expect("a").then(expect("b")).toString()).isEqualTo(expect("a") + ".then(" + expect("b") + ")");
+    }
+
+    @Test
+    void testStackSafeNesting() throws IOException {
+        java.util.List<Parser<Tuple0, Integer>> ref = new ArrayList<>();
+        Parser<Tuple0, Integer> nested = or(
+                ignoreErrorDetails(expect("[")).flatMap(named("nested", open -> ref.get(0)))
+                        .followedBy(ignoreErrorDetails(expect("]")))
+                        .map(named("inc", (Integer d) -> d + 1)),
+                pure(0));
+        ref.add(nested);
+        int depth = 100_000;
+        String input = new String(new char[depth]).replace("\0", "[") + new String(new char[depth]).replace("\0", "]");
+
+        assertThatThrownBy(() -> nested.parse(ArrayInput.of(input))).isInstanceOf(StackOverflowError.class);
+        assertThat(stackSafe(nested).parse(ArrayInput.of(input))).isEqualTo(Right(depth));
+        assertThat(stackSafe(nested).parse(ArrayInput.of("[[]"))).isEqualTo(Right(0));
+    }
+
+    @Test
+    void testStackSafeLongSequence() throws IOException {
+        Parser<Tuple0, Integer> seq = pure(0);
+        for (int i = 0; i < 100_000; i++) {
+            seq = seq.flatMap(named("next", (Integer n) -> ignoreErrorDetails(expect("a")).map(named("count", a -> n + 1))));
+        }
+        String input = new String(new char[100_000]).replace("\0", "a");
+
+        assertThat(stackSafe(seq).parse(ArrayInput.of(input))).isEqualTo(Right(100_000));
+        assertThat(stackSafe(seq).parse(ArrayInput.of("aaa"))).isEqualTo(Left(Tuple()));
+    }
+
+    @Test
+    void testCommitIsEnforcedOnEveryInput() throws IOException {
+        Parser<Integer, String> committed = or(commit(expect("ab")).then(expect("c")), expect("abd"));
+        Parser<Integer, String> uncommitted = or(expect("ab").then(expect("c")), expect("abd"));
+        byte[] bytes = "abd".getBytes(UTF_8);
+        java.util.List<Supplier<Input>> inputs = java.util.Arrays.asList(
+                () -> ArrayInput.of(bytes),
+                () -> ByteBufferInput.of(ByteBuffer.wrap(bytes)),
+                () -> ByteBufferInput.of((ByteBuffer) ByteBuffer.allocateDirect(3).put(bytes).flip()),
+                () -> StreamInput.of(new ByteArrayInputStream(bytes)));
+
+        for (Supplier<Input> in : inputs) {
+            assertThat(uncommitted.parse(in.get())).isEqualTo(Right("abd"));
+            assertThat(committed.parse(in.get())).isEqualTo(Left(0));
+            assertThat(or(expect("a").then(cut()).then(expect("c")), expect("abd")).parse(in.get()))
+                    .isEqualTo(Left(0));
+        }
+    }
+
+    @Test
+    void testFailureAfterCommitIsNotBacktracked() throws IOException {
+        Parser<Integer, String> ab = commit(expect("a")).then(expect("b"));
+
+        for (Parser<Integer, String> p : List.of(or(ab, expect("ac")), stackSafe(or(ab, expect("ac"))))) {
+            assertThat(p.parse(ArrayInput.of("ac"))).isEqualTo(Left(0));
+            assertThat(p.parse(ArrayInput.of("ab"))).isEqualTo(Right("b"));
+        }
+        for (Parser<Object, Either<Integer, String>> p : List.of(tryParse(ab), stackSafe(tryParse(ab)))) {
+            Input in = ArrayInput.of("ac");
+            assertThat(p.parse(in)).isEqualTo(Right(Left(0)));
+            assertThat(in.position()).isEqualTo(2);
+        }
+        for (Parser<Object, List<String>> p : List.of(zeroOrMore(ab), stackSafe(zeroOrMore(ab)))) {
+            assertThat(p.parse(ArrayInput.of("abac"))).isEqualTo(Left(0));
+            assertThat(p.parse(ArrayInput.of("abc"))).isEqualTo(Right(List.of("b")));
+        }
+        for (Parser<Integer, List<String>> p : List.of(oneOrMore(ab), stackSafe(oneOrMore(ab)))) {
+            assertThat(p.parse(ArrayInput.of("abac"))).isEqualTo(Left(0));
+        }
+    }
+
+    @Test
+    void testStackSafeMatchesRecursive() throws IOException {
+        Parser<Tuple0, List<String>> p = zeroOrMore(or(
+                commit(memo(expect("ab"))).map(named("ab", s -> s)),
+                ignoreErrorDetails(Parser.<String, Integer>not(expect("c"))).then(anyByte()).map(named("other", b -> "?"))),
+                List.collector());
+        Parser<Tuple0, List<String>> words = ignoreErrorDetails(oneOrMore(expect("x")))
+                .then(ignoreErrorDetails(p)).followedBy(tryParse(expect("c")));
+
+        for (String input : new String[] {"xabzab", "xab", "y", "xxc", ""}) {
+            assertThat(stackSafe(words).parse(ArrayInput.of(input))).isEqualTo(words.parse(ArrayInput.of(input)));
+        }
+    }
+
+    @Test
+    void testFirstSet() {
+        assertThat(expect("ab").firstSet()).isEqualTo(FirstSet.of((byte) 'a'));
+        assertThat(expect("ab").then(expect("c")).firstSet()).isEqualTo(FirstSet.of((byte) 'a'));
+        assertThat(or(expect("a"), expect("b")).firstSet()).isEqualTo(FirstSet.of((byte) 'a', (byte) 'b'));
+        assertThat(oneOrMore(expect("a")).firstSet()).isEqualTo(FirstSet.of((byte) 'a'));
+        assertThat(zeroOrMore(expect("a")).firstSet()).isEqualTo(FirstSet.ALL);
+        assertThat(anyByte().map(b -> b).firstSet()).isEqualTo(FirstSet.BYTES);
+        assertThat(eof().firstSet()).isEqualTo(FirstSet.END);
+        assertThat(error("e").firstSet()).isEqualTo(FirstSet.NONE);
+        assertThat(not(expect("a")).firstSet()).isEqualTo(FirstSet.ALL);
+    }
+}
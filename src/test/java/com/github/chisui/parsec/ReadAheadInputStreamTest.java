@@ -0,0 +1,98 @@
+package com.github.chisui.parsec;
+
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.github.chisui.parsec.Bytes.asString;
+import static com.github.chisui.parsec.Parser.*;
+import static io.vavr.API.Right;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReadAheadInputStreamTest {
+
+    @Test
+    void testReadsWholeStream() throws IOException {
+        try (ReadAheadInputStream in = ReadAheadInputStream.of(new ByteArrayInputStream(byteArray()), 7, 2)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[5];
+            int n;
+            while ((n = in.read(buf, 0, buf.length)) >= 0) {
+                out.write(buf, 0, n);
+            }
+
+            assertThat(out.toByteArray()).containsExactly(byteArray());
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void testRethrowsErrorAfterData() throws IOException {
+        InputStream failing = new InputStream() {
+            private int i;
+
+            @Override
+            public int read() throws IOException {
+                if (i == 3) {
+                    throw new IOException("boom");
+                }
+                return i++;
+            }
+        };
+        try (ReadAheadInputStream in = ReadAheadInputStream.of(failing, 2, 1)) {
+            assertThat(in.read()).isEqualTo(0);
+            assertThat(in.read()).isEqualTo(1);
+            assertThat(in.read()).isEqualTo(2);
+            assertThatThrownBy(in::read).hasMessage("boom");
+        }
+    }
+
+    @Test
+    void testCloseStopsReader() throws Exception {
+        Thread[] reader = new Thread[1];
+        ReadAheadInputStream in = ReadAheadInputStream.of(new ByteArrayInputStream(byteArray()), 1, 1, r -> {
+            reader[0] = new Thread(r);
+            return reader[0];
+        });
+
+        in.read();
+        in.close();
+        reader[0].join(1000);
+
+        assertThat(reader[0].isAlive()).isFalse();
+    }
+
+    @Test
+    void testStreamInputWithLookahead() throws IOException {
+        try (StreamInput in = StreamInput.readAhead(new ByteArrayInputStream("ab,abc,abd".getBytes(UTF_8)), 2)) {
+            Parser<Integer, String> word = or(expect("abc"), expect("abd"), expect("ab"));
+            Parser<Integer, List<String>> words = word
+                    .then(zeroOrMore(expect(",").then(word)), (w, ws) -> ws.prepend(w));
+
+            assertThat(words.parse(in)).isEqualTo(Right(List.of("ab", "abc", "abd")));
+            assertThat(eof().parse(in).isRight()).isTrue();
+        }
+    }
+
+    @Test
+    void testStreamInputSmallBuffers() throws IOException {
+        ReadAheadInputStream stream = ReadAheadInputStream.of(new ByteArrayInputStream("asdf".getBytes(UTF_8)), 1, 1);
+        try (StreamInput in = StreamInput.of(stream, 4, 2, 4)) {
+            assertThat(zeroOrMore(anyByte(), asString(UTF_8)).parse(in)).isEqualTo(Right("asdf"));
+        }
+    }
+
+    private byte[] byteArray() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+}
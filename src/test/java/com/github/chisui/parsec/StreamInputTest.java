@@ -5,11 +5,13 @@ import com.github.chisui.parsec.base.NamedFunction;
 import io.vavr.Tuple0;
 import io.vavr.collection.List;
 import io.vavr.collection.Traversable;
+import io.vavr.control.Either;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.function.Function;
 
 import static com.github.chisui.parsec.Parser.*;
@@ -19,6 +21,8 @@ import static io.vavr.API.List;
 import static io.vavr.API.Right;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
+import static java.util.stream.Collectors.counting;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class StreamInputTest {
 
@@ -118,6 +122,186 @@ class StreamInputTest {
     }
 
 
+    @Test
+    void testMarkWhileReplayingBufferedWindows() throws Exception {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 8);
+
+        Input.Marker first = si.mark();
+        si.read(4);
+        si.read(4);
+        si.read(4);
+        first.rewind();
+        assertThat(si.read(4).copy()).containsExactly(0, 1, 2, 3);
+        assertThat(si.read(4).copy()).containsExactly(4, 5, 6, 7);
+
+        Input.Marker second = si.mark();
+        assertThat(si.read(4).copy()).containsExactly(8, 9, 10, 11);
+        second.rewind();
+        assertThat(si.read(4).copy()).containsExactly(8, 9, 10, 11);
+    }
+
+    @Test
+    void testKeepWindowsOfOlderMarker() throws Exception {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 8);
+
+        Input.Marker mark = si.mark();
+        for (int i = 0; i < 4; i++) {
+            si.read(4);
+        }
+        mark.rewind();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 4; i++) {
+            out.write(si.read(4).copy());
+        }
+        assertThat(out.toByteArray()).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15);
+    }
+
+    @Test
+    void testClosedMarkersReleaseBuffer() throws Exception {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 1);
+
+        Either<Object, byte[]> res = zeroOrMore(anyByte(), Bytes.bytes()).parse(si);
+
+        assertThat(res.get()).containsExactly(byteArray());
+    }
+
+    @Test
+    void testLiveMarkerBeyondLimit() throws Exception {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 2);
+
+        si.mark();
+        si.read(4);
+        si.read(4);
+
+        assertThatThrownBy(() -> si.read(4))
+                .isInstanceOf(IOException.class)
+                .hasMessage("max chunk count of 2 reached, 1 live markers hold 8 bytes from position 0");
+    }
+
+    @Test
+    void testFullBufferIsNotCompactedForFewBytes() throws Exception {
+        StreamInput si = fullBufferWithMarkerAt(1);
+
+        assertThatThrownBy(() -> si.read(1))
+                .isInstanceOf(IOException.class)
+                .hasMessage("max chunk count of 2 reached, 1 live markers hold 7 bytes from position 1");
+    }
+
+    @Test
+    void testFullBufferIsCompactedForAQuarter() throws Exception {
+        StreamInput si = fullBufferWithMarkerAt(2);
+
+        assertThat(si.read(1).byteAt(0)).isEqualTo((byte) 8);
+        assertThat(si.position()).isEqualTo(9);
+    }
+
+    private StreamInput fullBufferWithMarkerAt(int position) throws IOException {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 2);
+        try (Input.Marker start = si.mark()) {
+            si.read(4);
+            si.read(4);
+            start.rewind();
+        }
+        si.read(position);
+        si.mark();
+        si.read(8 - position);
+        assertThat(si.position()).isEqualTo(8);
+        return si;
+    }
+
+    @Test
+    void testRewindToReleasedPosition() throws Exception {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 2);
+
+        Input.Marker mark = si.mark();
+        mark.close();
+        si.read(4);
+        si.read(4);
+        si.read(4);
+
+        assertThatThrownBy(mark::rewind).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testCutInvalidatesEarlierMarkers() throws Exception {
+        StreamInput si = StreamInput.of(bytes(), 4, 4, 2);
+
+        Input.Marker before = si.mark();
+        si.read(2);
+        si.cut();
+        Input.Marker after = si.mark();
+        si.read(2);
+
+        assertThatThrownBy(before::rewind)
+                .isInstanceOf(IOException.class)
+                .hasMessage("Can not rewind to position 0 before cut at 2");
+        after.rewind();
+        assertThat(si.read(1).copy()).containsExactly(2);
+        before.close();
+        after.close();
+    }
+
+    @Test
+    void testCommitReleasesBufferHeldByEnclosingMarker() throws Exception {
+        Parser<Tuple0, byte[]> record = takeWhile1(BytePredicate.letter()).followedBy(ignoreErrorDetails(expect("\n")));
+        byte[] records = new String(new char[1000]).replace("\0", "abc\n").getBytes(UTF_8);
+
+        Parser<Object, Either<Object, Long>> committed = tryParse(zeroOrMore(commit(record), counting()));
+        Parser<Object, Either<Object, Long>> uncommitted = tryParse(zeroOrMore(record, counting()));
+
+        assertThat(committed.parse(StreamInput.of(new ByteArrayInputStream(records), 4, 16, 4)))
+                .isEqualTo(Right(Right(1000L)));
+        assertThatThrownBy(() -> uncommitted.parse(StreamInput.of(new ByteArrayInputStream(records), 4, 16, 4)))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testStreamRecordsWithBoundedBuffer() throws Exception {
+        Parser<Tuple0, byte[]> record = takeWhile1(BytePredicate.letter()).followedBy(ignoreErrorDetails(expect("\n")));
+        byte[] records = new String(new char[1000]).replace("\0", "abc\n").getBytes(UTF_8);
+
+        assertThat(record.stream(StreamInput.of(new ByteArrayInputStream(records), 4, 16, 4)).count())
+                .isEqualTo(1000L);
+    }
+
+    @Test
+    void testRecordFailureHasPosition() throws Exception {
+        Parser<Tuple0, byte[]> record = takeWhile1(BytePredicate.letter()).followedBy(ignoreErrorDetails(expect("\n")));
+        Iterator<byte[]> records = record.records(StreamInput.of(new ByteArrayInputStream("ab\ncd\n1\n".getBytes(UTF_8))));
+
+        assertThat(records.next()).containsExactly('a', 'b');
+        assertThat(records.next()).containsExactly('c', 'd');
+        assertThat(records.hasNext()).isTrue();
+        assertThatThrownBy(records::next)
+                .isInstanceOfSatisfying(ParseFailure.class, e -> {
+                    assertThat(e.position()).isEqualTo(6);
+                    assertThat(e.record()).isEqualTo(2);
+                });
+        assertThat(records.hasNext()).isFalse();
+    }
+
+    @Test
+    void testRecordFailureMessageShowsArrayErrors() {
+        byte[] malformed = {(byte) 0xc3, 'a'};
+        Iterator<Character> records = character(UTF_8).records(StreamInput.of(new ByteArrayInputStream(malformed)));
+
+        assertThatThrownBy(records::next)
+                .isInstanceOf(ParseFailure.class)
+                .hasMessage("record 0 at position 0 failed with [-61, 97]");
+    }
+
+    @Test
+    void testCaptureOutlivesBuffer() throws Exception {
+        String input = "alpha,beta,gamma,delta,";
+        StreamInput in = StreamInput.of(new ByteArrayInputStream(input.getBytes(UTF_8)), 1, 4, 4);
+        Parser<Tuple0, ByteSlice> field = capture(takeWhile1(BytePredicate.letter()))
+                .followedBy(ignoreErrorDetails(expect(",")));
+
+        List<ByteSlice> fields = List.ofAll(() -> field.records(in));
+
+        assertThat(fields.map(f -> f.decode(UTF_8))).containsExactly("alpha", "beta", "gamma", "delta");
+    }
 
     @Test
     void testParseWithLookahead() throws IOException {